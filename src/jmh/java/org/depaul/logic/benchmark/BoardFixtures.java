@@ -0,0 +1,40 @@
+package org.depaul.logic.benchmark;
+
+import org.depaul.logic.util.SplitMix64;
+
+/**
+ * Builds realistic pre-filled playfields: the lower part of the board is filled
+ * to the requested density with at least one hole per row, the top stays empty
+ * so new bricks can still spawn.
+ */
+final class BoardFixtures {
+
+    // share of the rows (from the bottom) that contain rubble
+    private static final double STACK_HEIGHT = 0.6;
+
+    //No instantiation!
+    private BoardFixtures() {
+
+    }
+
+    static int[][] filledMatrix(int rows, int columns, double density, long seed) {
+        SplitMix64 random = new SplitMix64(seed);
+        int[][] matrix = new int[rows][columns];
+        int firstRow = rows - (int) (rows * STACK_HEIGHT);
+        for (int row = firstRow; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                if ((random.nextLong() >>> 11) * 0x1.0p-53 < density) {
+                    matrix[row][col] = 1 + random.nextInt(7);
+                }
+            }
+            matrix[row][random.nextInt(columns)] = 0;
+        }
+        return matrix;
+    }
+
+    static void fillRow(int[][] matrix, int row) {
+        for (int col = 0; col < matrix[row].length; col++) {
+            matrix[row][col] = 1 + col % 7;
+        }
+    }
+}
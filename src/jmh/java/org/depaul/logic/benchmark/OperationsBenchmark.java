@@ -0,0 +1,67 @@
+package org.depaul.logic.benchmark;
+
+import org.depaul.logic.util.Operations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OperationsBenchmark {
+
+    @Param({"25x10", "50x20", "100x30"})
+    public String size;
+
+    @Param({"0.3", "0.7"})
+    public double density;
+
+    private int[][] matrix;
+    private final int[][] brick = {
+            {0, 0, 0, 0},
+            {0, 6, 6, 6},
+            {0, 0, 6, 0},
+            {0, 0, 0, 0}
+    };
+    private int x;
+    private int y;
+
+    @Setup
+    public void setup() {
+        String[] parts = size.split("x");
+        int rows = Integer.parseInt(parts[0]);
+        int columns = Integer.parseInt(parts[1]);
+        matrix = BoardFixtures.filledMatrix(rows, columns, density, 1234L);
+        x = columns / 2 - 2;
+        // just above the rubble, where collision checks actually happen
+        y = rows - (int) (rows * 0.6) - 2;
+    }
+
+    @Benchmark
+    public boolean intersectMatrix() {
+        return Operations.intersectMatrix(matrix, brick, x, y);
+    }
+
+    @Benchmark
+    public int[][] mergeMatrix() {
+        return Operations.mergeMatrix(matrix, brick, x, y);
+    }
+
+    @Benchmark
+    public int[][] copyMatrix() {
+        return Operations.copyMatrix(matrix);
+    }
+}
@@ -0,0 +1,93 @@
+package org.depaul.logic.benchmark;
+
+import org.depaul.logic.board.SimpleBoard;
+import org.depaul.logic.bot.AutoPlayer;
+import org.depaul.logic.bot.EvaluationCache;
+import org.depaul.logic.bot.PlacementHeuristic;
+import org.depaul.logic.bot.PlacementSearch;
+import org.depaul.logic.bricks.SeededBrickGenerator;
+import org.depaul.logic.engine.GameEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One bot decision on a 25x10 board with rubble: every placement of a T brick,
+ * with or without scoring each against every placement of the next brick.
+ * The autoplay benchmarks place one brick of an ongoing bot game per call,
+ * with and without an {@link EvaluationCache}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlacementSearchBenchmark {
+
+    private static final int T = 5;
+    private static final int S = 4;
+
+    @Param({"0.3", "0.7"})
+    public double density;
+
+    PlacementSearch search;
+    int[][] board;
+    GameEngine plainGame;
+    AutoPlayer plainPlayer;
+    GameEngine cachedGame;
+    AutoPlayer cachedPlayer;
+
+    @Setup
+    public void setup() {
+        search = new PlacementSearch(25, 10, PlacementHeuristic.DEFAULT);
+        board = BoardFixtures.filledMatrix(25, 10, density, 1234L);
+        plainGame = new GameEngine(new SimpleBoard(25, 10, new SeededBrickGenerator(99L, SeededBrickGenerator.Mode.UNIFORM, 1)));
+        plainPlayer = new AutoPlayer(new PlacementSearch(25, 10, PlacementHeuristic.DEFAULT), true);
+        cachedGame = new GameEngine(new SimpleBoard(25, 10, new SeededBrickGenerator(99L, SeededBrickGenerator.Mode.UNIFORM, 1)));
+        PlacementSearch cachedSearch = new PlacementSearch(25, 10, PlacementHeuristic.DEFAULT);
+        cachedSearch.setCache(new EvaluationCache(16));
+        cachedPlayer = new AutoPlayer(cachedSearch, true);
+    }
+
+    @Benchmark
+    public boolean currentBrickOnly() {
+        return search.search(board, T, 0, 3, 0, -1);
+    }
+
+    @Benchmark
+    public boolean withNextBrick() {
+        return search.search(board, T, 0, 3, 0, S);
+    }
+
+    @Benchmark
+    public int autoplayPiece() {
+        return placeOne(plainGame, plainPlayer);
+    }
+
+    @Benchmark
+    public int autoplayPieceCached() {
+        return placeOne(cachedGame, cachedPlayer);
+    }
+
+    private static int placeOne(GameEngine engine, AutoPlayer player) {
+        if (engine.isGameOver()) {
+            engine.newGame();
+        }
+        int pieces = engine.getPiecesPlaced();
+        while (engine.getPiecesPlaced() == pieces && !engine.isGameOver()) {
+            engine.step(player.nextMove(engine));
+        }
+        return engine.getPiecesPlaced();
+    }
+}
@@ -0,0 +1,73 @@
+package org.depaul.logic.benchmark;
+
+import org.depaul.logic.board.SimpleBoard;
+import org.depaul.logic.bricks.SeededBrickGenerator;
+import org.depaul.logic.engine.GameEngine;
+import org.depaul.logic.engine.GameEventListener;
+import org.depaul.logic.events.MoveEvent;
+import org.depaul.logic.replay.Replay;
+import org.depaul.logic.replay.ReplayPlayer;
+import org.depaul.logic.replay.ReplayWriter;
+import org.depaul.logic.sim.RandomMovePolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless playback of one complete recorded game, random moves with a
+ * gravity step after each, until the stack reaches the top.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReplayBenchmark {
+
+    Replay replay;
+
+    @Setup
+    public void setup() throws IOException {
+        long seed = 42L;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GameEngine engine = new GameEngine(new SimpleBoard(25, 10, new SeededBrickGenerator(seed, SeededBrickGenerator.Mode.BAG, 1)));
+        ReplayWriter writer = new ReplayWriter(out, System::nanoTime, 25, 10, seed, SeededBrickGenerator.Mode.BAG, 1);
+        engine.addListener(new GameEventListener() {
+            @Override
+            public void onMoveApplied(MoveEvent event) {
+                try {
+                    writer.write(event);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+        RandomMovePolicy policy = new RandomMovePolicy(seed);
+        while (!engine.isGameOver()) {
+            engine.step(policy.nextMove(engine));
+            engine.fall();
+        }
+        writer.finish(engine);
+        replay = Replay.read(ByteBuffer.wrap(out.toByteArray()));
+        System.out.println("\nreplay: " + replay.getEventCount() + " events, " + replay.getPieces() + " pieces");
+    }
+
+    @Benchmark
+    public GameEngine playHeadless() {
+        return ReplayPlayer.play(replay);
+    }
+}
@@ -0,0 +1,166 @@
+package org.depaul.logic.benchmark;
+
+import org.depaul.logic.board.SimpleBoard;
+import org.depaul.logic.bricks.SeededBrickGenerator;
+import org.depaul.logic.data.ViewData;
+import org.depaul.logic.events.EventSource;
+import org.depaul.logic.events.EventType;
+import org.depaul.logic.events.MoveEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SimpleBoard operations on pre-filled boards. moveBrick and clearLines change
+ * the board, so each of them runs once over a batch of {@value #BATCH} boards
+ * prepared by an iteration setup, one invocation per iteration, and reports
+ * the time per board. The preparation is not measured, and the timer reads
+ * are spread over the whole batch.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimpleBoardBenchmark {
+
+    static final int BATCH = 2048;
+
+    @State(Scope.Thread)
+    public static class BoardState {
+
+        @Param({"25x10", "50x20", "100x30"})
+        public String size;
+
+        @Param({"0.3", "0.7"})
+        public double density;
+
+        int rows;
+        int columns;
+        SimpleBoard board;
+        int[][] template;
+
+        @Setup
+        public void setup() {
+            String[] parts = size.split("x");
+            rows = Integer.parseInt(parts[0]);
+            columns = Integer.parseInt(parts[1]);
+            board = newBoard();
+            template = BoardFixtures.filledMatrix(rows, columns, density, 1234L);
+            board.loadBoardMatrix(template);
+        }
+
+        SimpleBoard newBoard() {
+            SimpleBoard fresh = new SimpleBoard(rows, columns, new SeededBrickGenerator(99L, SeededBrickGenerator.Mode.BAG, 1));
+            fresh.newGame();
+            return fresh;
+        }
+
+        // BATCH boards holding matrix
+        SimpleBoard[] batch(int[][] matrix) {
+            SimpleBoard[] boards = new SimpleBoard[BATCH];
+            for (int i = 0; i < BATCH; i++) {
+                boards[i] = newBoard();
+                boards[i].loadBoardMatrix(matrix);
+            }
+            return boards;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class MoveState {
+
+        @Param({"DOWN", "LEFT", "RIGHT", "UP", "Z", "SPACE"})
+        public EventType eventType;
+
+        MoveEvent event;
+        SimpleBoard[] boards;
+
+        @Setup
+        public void setup(BoardState state) {
+            event = new MoveEvent(eventType, EventSource.THREAD);
+            boards = state.batch(state.template);
+        }
+
+        @Setup(Level.Iteration)
+        public void spawn() {
+            for (SimpleBoard board : boards) {
+                board.createNewBrick();
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ClearState {
+
+        @Param({"1", "4"})
+        public int fullRows;
+
+        int[][] withFullRows;
+        SimpleBoard[] boards;
+
+        @Setup
+        public void setup(BoardState state) {
+            withFullRows = new int[state.template.length][];
+            for (int row = 0; row < withFullRows.length; row++) {
+                withFullRows[row] = state.template[row].clone();
+            }
+            for (int i = 0; i < fullRows; i++) {
+                BoardFixtures.fillRow(withFullRows, withFullRows.length - 1 - 2 * i);
+            }
+            boards = state.batch(withFullRows);
+        }
+
+        @Setup(Level.Iteration)
+        public void reload() {
+            for (SimpleBoard board : boards) {
+                board.loadBoardMatrix(withFullRows);
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    @Warmup(iterations = 50)
+    @Measurement(iterations = 200)
+    public int moveBrick(MoveState move) {
+        int moved = 0;
+        for (SimpleBoard board : move.boards) {
+            moved += board.moveBrick(move.event) ? 1 : 0;
+        }
+        return moved;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(BATCH)
+    @Warmup(iterations = 50)
+    @Measurement(iterations = 200)
+    public int clearLines(ClearState clear) {
+        int cleared = 0;
+        for (SimpleBoard board : clear.boards) {
+            cleared += board.clearLines();
+        }
+        return cleared;
+    }
+
+    @Benchmark
+    public ViewData getViewData(BoardState state) {
+        return state.board.getViewData();
+    }
+}
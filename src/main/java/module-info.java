@@ -2,10 +2,13 @@ module org.depaul {
     requires javafx.controls;
     requires javafx.fxml;
     requires java.desktop;
+    requires java.management;
+    requires jdk.jfr;
 
     opens org.depaul.gui to javafx.fxml;
 
     exports org.depaul.gui;
 	exports org.depaul.app;
+	exports org.depaul.logic.metrics;
 	opens org.depaul.app to javafx.fxml;
 }
\ No newline at end of file
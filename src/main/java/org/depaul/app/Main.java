@@ -12,6 +12,8 @@ import java.net.URL;
 
 public class Main extends Application {
 
+    private GameController controller;
+
     @Override
     public void start(Stage primaryStage) throws Exception {
 
@@ -25,7 +27,14 @@ public class Main extends Application {
         Scene scene = new Scene(root, 400, 510);
         primaryStage.setScene(scene);
         primaryStage.show();
-        new GameController(c);
+        controller = new GameController(c);
+    }
+
+    @Override
+    public void stop() throws Exception {
+        if (controller != null) {
+            controller.close();
+        }
     }
 
 
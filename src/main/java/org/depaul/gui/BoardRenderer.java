@@ -0,0 +1,26 @@
+package org.depaul.gui;
+
+import org.depaul.logic.data.ViewData;
+
+/**
+ * Draws the playfield, the falling brick and the next-brick preview.
+ * GuiController picks an implementation from the {@code tetris.renderer}
+ * system property: {@code nodes} (default, one Rectangle per cell) or
+ * {@code canvas}. All methods are called on the FX application thread, with
+ * matrices taken from published frames.
+ */
+public interface BoardRenderer {
+
+    void init(int[][] boardMatrix, ViewData brick);
+
+    void refreshBackground(int[][] board);
+
+    void refreshBrick(ViewData brick);
+
+    /**
+     * Called by the frame pump once a frame's refreshes have been applied.
+     * Renderers that defer drawing flush it here, in the same pulse.
+     */
+    default void render() {
+    }
+}
@@ -0,0 +1,134 @@
+package org.depaul.gui;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.GridPane;
+import org.depaul.logic.bricks.BrickShape;
+import org.depaul.logic.data.ViewData;
+import org.depaul.logic.util.Operations;
+
+/**
+ * Draws the board, the falling brick, its ghost and the next-brick preview onto
+ * two Canvases. Refresh calls only record the new state; {@link #render()}
+ * draws it, once per shown frame and only when something changed, so the scene
+ * graph stays at two nodes whatever the board size.
+ */
+class CanvasBoardRenderer implements BoardRenderer {
+
+    private static final int BRICK_SIZE = 20;
+
+    // brick plus the 1px gap the GridPane view uses
+    private static final int PITCH = BRICK_SIZE + 1;
+
+    private static final int ARC_SIZE = 9;
+
+    // the two top rows are spawn space and never shown
+    private static final int HIDDEN_ROWS = 2;
+
+    private final GridPane gamePanel;
+
+    private final GridPane brickPanel;
+
+    private final GridPane nextBrick;
+
+    private GraphicsContext boardGraphics;
+
+    private GraphicsContext nextGraphics;
+
+    private int[][] board;
+
+    private ViewData brick;
+
+    private boolean dirty;
+
+    CanvasBoardRenderer(GridPane gamePanel, GridPane brickPanel, GridPane nextBrick) {
+        this.gamePanel = gamePanel;
+        this.brickPanel = brickPanel;
+        this.nextBrick = nextBrick;
+    }
+
+    @Override
+    public void init(int[][] boardMatrix, ViewData brick) {
+        brickPanel.setVisible(false);
+        Canvas boardCanvas = new Canvas(boardMatrix[0].length * PITCH - 1, (boardMatrix.length - HIDDEN_ROWS) * PITCH - 1);
+        gamePanel.add(boardCanvas, 0, 0);
+        boardGraphics = boardCanvas.getGraphicsContext2D();
+
+        Canvas nextCanvas = new Canvas(BrickShape.SIZE * PITCH - 1, BrickShape.SIZE * PITCH - 1);
+        nextBrick.getChildren().clear();
+        nextBrick.add(nextCanvas, 0, 0);
+        nextGraphics = nextCanvas.getGraphicsContext2D();
+
+        board = boardMatrix;
+        refreshBrick(brick);
+        render();
+    }
+
+    @Override
+    public void refreshBackground(int[][] board) {
+        this.board = board;
+        dirty = true;
+    }
+
+    @Override
+    public void refreshBrick(ViewData brick) {
+        this.brick = brick;
+        dirty = true;
+    }
+
+    @Override
+    public void render() {
+        if (dirty) {
+            dirty = false;
+            draw();
+        }
+    }
+
+    private void draw() {
+        GraphicsContext g = boardGraphics;
+        g.clearRect(0, 0, g.getCanvas().getWidth(), g.getCanvas().getHeight());
+        for (int i = HIDDEN_ROWS; i < board.length; i++) {
+            for (int j = 0; j < board[i].length; j++) {
+                if (board[i][j] != 0) {
+                    g.setFill(CellPalette.fill(board[i][j]));
+                    fillCell(g, j, i - HIDDEN_ROWS);
+                }
+            }
+        }
+
+        BrickShape shape = brick.brickShape();
+        int ghostY = brick.getyPosition();
+        while (!Operations.intersectMatrix(board, shape, brick.getxPosition(), ghostY + 1)) {
+            ghostY++;
+        }
+        drawBrick(g, shape, ghostY, true);
+        drawBrick(g, shape, brick.getyPosition(), false);
+
+        GraphicsContext n = nextGraphics;
+        n.clearRect(0, 0, n.getCanvas().getWidth(), n.getCanvas().getHeight());
+        for (int i = 0; i < BrickShape.SIZE; i++) {
+            for (int j = 0; j < BrickShape.SIZE; j++) {
+                if (brick.getNextBrickCell(i, j) != 0) {
+                    n.setFill(CellPalette.fill(brick.getNextBrickCell(i, j)));
+                    fillCell(n, j, i);
+                }
+            }
+        }
+    }
+
+    private void drawBrick(GraphicsContext g, BrickShape shape, int y, boolean ghost) {
+        for (int n = 0; n < shape.getCellCount(); n++) {
+            int i = shape.getCellRow(n);
+            int j = shape.getCellCol(n);
+            int row = y + i - HIDDEN_ROWS;
+            if (row >= 0) {
+                g.setFill(ghost ? CellPalette.ghost(shape.getCell(i, j)) : CellPalette.fill(shape.getCell(i, j)));
+                fillCell(g, brick.getxPosition() + j, row);
+            }
+        }
+    }
+
+    private static void fillCell(GraphicsContext g, int col, int row) {
+        g.fillRoundRect(col * PITCH, row * PITCH, BRICK_SIZE, BRICK_SIZE, ARC_SIZE, ARC_SIZE);
+    }
+}
@@ -0,0 +1,45 @@
+package org.depaul.gui;
+
+import javafx.scene.paint.Color;
+
+final class CellPalette {
+
+    // indexed by cell value, parsed once instead of on every refresh
+    private static final Color[] PALETTE = {
+            Color.TRANSPARENT,
+            Color.web("00FFFF", 1), //cyan
+            Color.web("00008B", 1), //dark blue
+            Color.web("FFA500", 1), //orange
+            Color.web("FFFF00", 1), //yellow
+            Color.web("32CD32", 1), //lime green
+            Color.web("BF40BF", 1), //purple
+            Color.web("ff0000", 1), //red
+            Color.web("4d908e", 1),
+            Color.web("577590", 1),
+            Color.web("277da1", 1)
+    };
+
+    private static final Color[] GHOST_PALETTE = new Color[PALETTE.length];
+
+    static {
+        for (int i = 0; i < PALETTE.length; i++) {
+            GHOST_PALETTE[i] = PALETTE[i].deriveColor(0, 1, 1, 0.3);
+        }
+    }
+
+    //No instantiation!
+    private CellPalette() {
+
+    }
+
+    static Color fill(int value) {
+        if (value < 0 || value >= PALETTE.length) {
+            throw new IllegalArgumentException("No colour for cell value " + value);
+        }
+        return PALETTE[value];
+    }
+
+    static Color ghost(int value) {
+        return GHOST_PALETTE[value];
+    }
+}
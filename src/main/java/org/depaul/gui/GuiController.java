@@ -1,11 +1,12 @@
 package org.depaul.gui;
 
+import org.depaul.logic.data.Frame;
 import org.depaul.logic.data.ViewData;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.animation.AnimationTimer;
 import javafx.beans.property.BooleanProperty;
-import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.LongProperty;
 import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleLongProperty;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -14,16 +15,14 @@ import javafx.scene.control.ToggleButton;
 import javafx.scene.effect.Reflection;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.GridPane;
-import javafx.scene.paint.Color;
-import javafx.scene.paint.Paint;
-import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Font;
 import javafx.scene.text.Text;
-import javafx.util.Duration;
 import org.depaul.logic.events.EventSource;
 import org.depaul.logic.events.EventType;
 import org.depaul.logic.events.InputEventListener;
 import org.depaul.logic.events.MoveEvent;
+import org.depaul.logic.metrics.Metrics;
+import org.depaul.logic.metrics.RenderEvent;
 
 import java.net.URL;
 import java.util.LinkedList;
@@ -32,8 +31,6 @@ import java.util.concurrent.ThreadLocalRandom;
 
 public class GuiController implements Initializable {
 
-    private static final int BRICK_SIZE = 20;
-
     @FXML
     private GridPane gamePanel;
 
@@ -55,13 +52,27 @@ public class GuiController implements Initializable {
     @FXML
     private Group gameOverNotification;
 
-    private Rectangle[][] displayMatrix;
+    private BoardRenderer renderer;
 
     private InputEventListener eventListener;
 
-    private Rectangle[][] rectangles;
+    // picks up the latest frame from the logic thread once per pulse
+    private final AnimationTimer framePump = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            showFrame(eventListener.getFrame());
+        }
+    };
+
+    private long shownFrame;
+
+    private long shownBoardVersion;
 
-    private Timeline timeLine;
+    // nanoTime of the oldest key press not on screen yet, 0 when there is none
+    private long pressedAt;
+
+    // the score as last shown, set at most once per frame
+    private final LongProperty score = new SimpleLongProperty();
 
     private final BooleanProperty isPause = new SimpleBooleanProperty();
 
@@ -94,7 +105,8 @@ gamePanel.setOnKeyPressed(keyEvent -> {
             keyEvent.consume();
         }
         else if (keyEvent.getCode() == KeyCode.DOWN) {
-            onUserMove(new MoveEvent(EventType.DOWN, EventSource.THREAD));
+            // held down: the game falls at soft drop speed until the key is released
+            eventListener.setSoftDrop(true);
             keyEvent.consume();
         } else if(keyEvent.getCode() == KeyCode.Z) {
             onUserMove(new MoveEvent(EventType.Z, EventSource.THREAD));
@@ -102,7 +114,6 @@ gamePanel.setOnKeyPressed(keyEvent -> {
         }
         else if (keyEvent.getCode() == KeyCode.ESCAPE) {
             isPause.setValue(Boolean.TRUE);
-            timeLine.pause();
             pauseButton.setText("Resume");
             keyEvent.consume();
         }
@@ -112,12 +123,17 @@ gamePanel.setOnKeyPressed(keyEvent -> {
     } else if(isPause.getValue() == Boolean.TRUE && isGameOver.getValue() == Boolean.FALSE) {
         if (keyEvent.getCode() == KeyCode.ESCAPE) {
             isPause.setValue(Boolean.FALSE);
-            timeLine.play();
             pauseButton.setText("Pause");
             keyEvent.consume();
         }
     }
 });
+gamePanel.setOnKeyReleased(keyEvent -> {
+    if (keyEvent.getCode() == KeyCode.DOWN) {
+        eventListener.setSoftDrop(false);
+        keyEvent.consume();
+    }
+});
 
 //        GAME OVER panel notification
         gameOverNotification.setVisible(false);
@@ -125,11 +141,10 @@ gamePanel.setOnKeyPressed(keyEvent -> {
 //        PAUSE button
         pauseButton.selectedProperty().bindBidirectional(isPause);
         pauseButton.selectedProperty().addListener((observable, oldValue, newValue) -> {
+            eventListener.setPaused(newValue);
             if (newValue) {
-                timeLine.pause();
                 pauseButton.setText("Resume");
             } else {
-                timeLine.play();
                 pauseButton.setText("Pause");
             }
         });
@@ -143,123 +158,64 @@ gamePanel.setOnKeyPressed(keyEvent -> {
     }
 
     public void initGameView(int[][] boardMatrix, ViewData brick) {
-//        displayMatrix is the GUI representation of the current state of the board currentGameMatrix
-        displayMatrix = new Rectangle[boardMatrix.length][boardMatrix[0].length];
-        for (int i = 2; i < boardMatrix.length; i++) {
-            for (int j = 0; j < boardMatrix[i].length; j++) {
-                Rectangle rectangle = new Rectangle(BRICK_SIZE, BRICK_SIZE);
-                rectangle.setFill(Color.TRANSPARENT);
-                displayMatrix[i][j] = rectangle;
-                gamePanel.add(rectangle, j, i - 2);
-            }
-        }
-
-//        rectangles is the GUI representation of the current state of brick.
-        rectangles = new Rectangle[brick.getBrickData().length][brick.getBrickData()[0].length];
-        for (int i = 0; i < brick.getBrickData().length; i++) {
-            for (int j = 0; j < brick.getBrickData()[i].length; j++) {
-                Rectangle rectangle = new Rectangle(BRICK_SIZE, BRICK_SIZE);
-                rectangle.setFill(getFillColor(brick.getBrickData()[i][j]));
-                rectangles[i][j] = rectangle;
-                brickPanel.add(rectangle, j, i);
-            }
-        }
-        brickPanel.setLayoutX(160 + gamePanel.getLayoutX() + brick.getxPosition() * brickPanel.getVgap() + brick.getxPosition() * BRICK_SIZE);
-        brickPanel.setLayoutY(-42 + gamePanel.getLayoutY() + brick.getyPosition() * brickPanel.getHgap() + brick.getyPosition() * BRICK_SIZE);
-
-        generateNextBrickPanel(brick.getNextBrickData());
+        renderer = createRenderer();
+        renderer.init(boardMatrix, brick);
 
-
-        timeLine = new Timeline(new KeyFrame(
-                Duration.millis(500),
-                ae -> onUserMove(new MoveEvent(EventType.DOWN, EventSource.THREAD))
-        ));
-        timeLine.setCycleCount(Timeline.INDEFINITE);
-        timeLine.play();
+        // gravity runs on the logic thread, see GravityScheduler
+        framePump.start();
     }
 
-    private Paint getFillColor(int i) {
-        Paint returnPaint = switch (i) {
-
-            case 0 -> Color.TRANSPARENT;
-            case 1 -> Color.web("00FFFF", 1); //cyan
-            case 2 -> Color.web("00008B", 1); //dark blue
-            case 3 -> Color.web("FFA500", 1); //orange
-            case 4 -> Color.web("FFFF00", 1); //yellow
-            case 5 -> Color.web("32CD32", 1); //lime green
-            case 6 -> Color.web("BF40BF", 1); //purple
-            case 7 -> Color.web("ff0000", 1); //red
-            case 8 -> Color.web("4d908e", 1); 
-            case 9 -> Color.web("577590", 1);
-            case 10 -> Color.web("277da1", 1);
-            default -> Color.web("", 1);
-        };
-        return returnPaint;
+    private BoardRenderer createRenderer() {
+        if ("canvas".equals(System.getProperty("tetris.renderer"))) {
+            return new CanvasBoardRenderer(gamePanel, brickPanel, nextBrick);
+        }
+        return new NodeBoardRenderer(gamePanel, brickPanel, nextBrick);
     }
 
-    private void generateNextBrickPanel(int[][] nextBrickData) {
-
-        nextBrick.getChildren().clear();
-        for (int i = 0; i < nextBrickData.length; i++) {
-            for (int j = 0; j < nextBrickData[i].length; j++) {
-                Rectangle rectangle = new Rectangle(BRICK_SIZE, BRICK_SIZE);
-                //Fixing random next brick's color issues Samira (Start)
-                setRectangleData(nextBrickData[i][j], rectangle);
-                //Fixing random next brick's color issues Samira (End)
-                if (nextBrickData[i][j] != 0) {
-                    nextBrick.add(rectangle, j, i);
-                }
-            }
+    private void showFrame(Frame frame) {
+        if (frame == null || frame.sequence() == shownFrame) {
+            return;
+        }
+        RenderEvent render = new RenderEvent();
+        render.begin();
+        long skipped = frame.sequence() - shownFrame - 1;
+        shownFrame = frame.sequence();
+        boolean background = frame.boardVersion() != shownBoardVersion;
+        if (background) {
+            shownBoardVersion = frame.boardVersion();
+            refreshGameBackground(frame.boardMatrix());
+        }
+        refreshBrick(frame.brick());
+        renderer.render();
+        showScore(frame.score());
+        if (render.shouldCommit()) {
+            render.frame = frame.sequence();
+            render.framesSkipped = Math.max(0, skipped);
+            render.backgroundRedrawn = background;
+            render.commit();
+        }
+        if (Metrics.ENABLED && pressedAt != 0) {
+            Metrics.KEY_TO_FRAME.recordSince(pressedAt);
+            pressedAt = 0;
         }
     }
 
     private void refreshBrick(ViewData brick) {
         if (isPause.getValue() == Boolean.FALSE) {
-
-            brickPanel.setLayoutX(160 + gamePanel.getLayoutX() + brick.getxPosition() * brickPanel.getVgap() + brick.getxPosition() * BRICK_SIZE);
-            brickPanel.setLayoutY(-42 + gamePanel.getLayoutY() + brick.getyPosition() * brickPanel.getHgap() + brick.getyPosition() * BRICK_SIZE);
-            for (int i = 0; i < brick.getBrickData().length; i++) {
-                for (int j = 0; j < brick.getBrickData()[i].length; j++) {
-
-                    //Fixing random falling brick's color issues Samira (Start)
-                    setRectangleData(brick.getBrickData()[i][j], rectangles[i][j]);
-                    //Fixing random falling brick's color issues Samira (End)
-
-                }
+            long start = Metrics.ENABLED ? System.nanoTime() : 0;
+            renderer.refreshBrick(brick);
+            if (Metrics.ENABLED) {
+                Metrics.REFRESH_BRICK.recordSince(start);
             }
-
-            generateNextBrickPanel(brick.getNextBrickData());
-            
         }
     }
 
-
     public void refreshGameBackground(int[][] board) {
-
-
-        int k = 0;
-        for (int i = 2; i < board.length; i++) {
-            for (int j = 0; j < board[i].length; j++) {
-
-                //Fixing random grid bricks color issues Samira (Start)
-
-                setRectangleData(board[i][j], displayMatrix[i][j]);
-                //Fixing random grid bricks color issues Samira (End)
-
-
-            }
-
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        renderer.refreshBackground(board);
+        if (Metrics.ENABLED) {
+            Metrics.REFRESH_BACKGROUND.recordSince(start);
         }
-
-
-    }
-
-    private void setRectangleData(int color, Rectangle rectangle) {
-        rectangle.setFill(getFillColor(color));
-        rectangle.setArcHeight(9);
-        rectangle.setArcWidth(9);
-
-
     }
 
     private void randomAction() {
@@ -274,48 +230,76 @@ gamePanel.setOnKeyPressed(keyEvent -> {
 
         } else {
             //        Game Over
-            gameOver();
+            gameOver(score.get());
         }
     }
 
     private void onUserMove(MoveEvent event) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
         if (isPause.getValue() == Boolean.FALSE) {
-            ViewData viewData = eventListener.onMoveEvent(event);
-            refreshBrick(viewData);
+            eventListener.onMoveEvent(event);
         }
         gamePanel.requestFocus();
+        if (Metrics.ENABLED) {
+            keyHandled(start);
+        }
+    }
+
+    private void keyHandled(long start) {
+        Metrics.USER_MOVE.recordSince(start);
+        if (pressedAt == 0) {
+            pressedAt = start;
+        }
+    }
+
+    // one notification for everything scored since the last frame, a new game just resets
+    private void showScore(long value) {
+        long gained = value - score.get();
+        if (gained != 0) {
+            score.set(value);
+            if (gained > 0) {
+                ShowScore(gained);
+            }
+        }
     }
 
-    public void ShowScore(int n){
+    public void ShowScore(long n){
         NotificationPanel notificationPanel = new NotificationPanel("+" + n);
         groupNotification.getChildren().add(notificationPanel);
         notificationPanel.showScore(groupNotification.getChildren());
     }
 
     private void rotateMove(MoveEvent event) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
         if (isPause.getValue() == Boolean.FALSE) {
-            ViewData viewData = eventListener.onRotateEvent(event);
-            refreshBrick(viewData);
+            eventListener.onRotateEvent(event);
         }
         gamePanel.requestFocus();
+        if (Metrics.ENABLED) {
+            keyHandled(start);
+        }
     }
 
     public void setEventListener(InputEventListener eventListener) {
         this.eventListener = eventListener;
     }
 
-    public void bindScore(IntegerProperty integerProperty) {
-        scoreValue.textProperty().bind(integerProperty.asString());
+    public void bindScore() {
+        scoreValue.textProperty().bind(score.asString());
     }
 
-    public void gameOver() {
-        timeLine.stop();
-        GameOverPanel gameOverPanel = new GameOverPanel("GameOver!\n" + "Score:\n" + scoreValue.textProperty().getValue());
+    // the final score comes from the logic thread, the frame carrying it may not be shown yet
+    public void gameOver(long finalScore) {
+        GameOverPanel gameOverPanel = new GameOverPanel(gameOverText(finalScore));
         gameOverNotification.getChildren().add(gameOverPanel);
         gameOverNotification.setVisible(true);
         isGameOver.setValue(Boolean.TRUE);
 
     }
+
+    static String gameOverText(long finalScore) {
+        return "GameOver!\n" + "Score:\n" + finalScore;
+    }
 //  Game Start CountDown
 //     public void countDown(){
 //         for(int i = 3; i > 0; i--){
@@ -330,12 +314,10 @@ gamePanel.setOnKeyPressed(keyEvent -> {
 //     }
 
     public void newGame(ActionEvent actionEvent) {  //where 'New Game' button is hit
-        timeLine.stop();
         gameOverNotification.setVisible(false);
         eventListener.createNewGame();
         gamePanel.requestFocus();
         //countDown();
-        timeLine.play();
         isPause.setValue(Boolean.FALSE);
         isGameOver.setValue(Boolean.FALSE);
 
@@ -0,0 +1,129 @@
+package org.depaul.gui;
+
+import javafx.scene.layout.GridPane;
+import javafx.scene.shape.Rectangle;
+import org.depaul.logic.bricks.BrickShape;
+import org.depaul.logic.data.ViewData;
+
+/**
+ * The original view: one Rectangle per board cell in {@code gamePanel} and a
+ * separate {@code brickPanel} grid that is moved around for the falling brick.
+ */
+class NodeBoardRenderer implements BoardRenderer {
+
+    private static final int BRICK_SIZE = 20;
+
+    private static final int ARC_SIZE = 9;
+
+    private final GridPane gamePanel;
+
+    private final GridPane brickPanel;
+
+    private final GridPane nextBrick;
+
+    private Rectangle[][] displayMatrix;
+
+    // cell values currently shown by displayMatrix
+    private int[][] renderedBoard;
+
+    private Rectangle[][] rectangles;
+
+    // preview currently shown in nextBrick
+    private BrickShape shownNextBrick;
+
+    NodeBoardRenderer(GridPane gamePanel, GridPane brickPanel, GridPane nextBrick) {
+        this.gamePanel = gamePanel;
+        this.brickPanel = brickPanel;
+        this.nextBrick = nextBrick;
+    }
+
+    @Override
+    public void init(int[][] boardMatrix, ViewData brick) {
+//        displayMatrix is the GUI representation of the current state of the board currentGameMatrix
+        displayMatrix = new Rectangle[boardMatrix.length][boardMatrix[0].length];
+        renderedBoard = new int[boardMatrix.length][boardMatrix[0].length];
+        for (int i = 2; i < boardMatrix.length; i++) {
+            for (int j = 0; j < boardMatrix[i].length; j++) {
+                Rectangle rectangle = new Rectangle(BRICK_SIZE, BRICK_SIZE);
+                setRectangleData(0, rectangle);
+                displayMatrix[i][j] = rectangle;
+                gamePanel.add(rectangle, j, i - 2);
+            }
+        }
+
+//        rectangles is the GUI representation of the current state of brick.
+        rectangles = new Rectangle[BrickShape.SIZE][BrickShape.SIZE];
+        for (int i = 0; i < BrickShape.SIZE; i++) {
+            for (int j = 0; j < BrickShape.SIZE; j++) {
+                Rectangle rectangle = new Rectangle(BRICK_SIZE, BRICK_SIZE);
+                setRectangleData(brick.getBrickCell(i, j), rectangle);
+                rectangles[i][j] = rectangle;
+                brickPanel.add(rectangle, j, i);
+            }
+        }
+        moveBrickPanel(brick);
+
+        generateNextBrickPanel(brick);
+    }
+
+    // Only cells that differ from what is already on screen are touched
+    @Override
+    public void refreshBackground(int[][] board) {
+        for (int i = 2; i < board.length; i++) {
+            int[] row = board[i];
+            int[] rendered = renderedBoard[i];
+            for (int j = 0; j < row.length; j++) {
+                if (row[j] != rendered[j]) {
+                    displayMatrix[i][j].setFill(CellPalette.fill(row[j]));
+                    rendered[j] = row[j];
+                }
+            }
+        }
+    }
+
+    @Override
+    public void refreshBrick(ViewData brick) {
+        moveBrickPanel(brick);
+        for (int i = 0; i < BrickShape.SIZE; i++) {
+            for (int j = 0; j < BrickShape.SIZE; j++) {
+
+                //Fixing random falling brick's color issues Samira (Start)
+                rectangles[i][j].setFill(CellPalette.fill(brick.getBrickCell(i, j)));
+                //Fixing random falling brick's color issues Samira (End)
+
+            }
+        }
+
+        if (brick.nextBrickShape() != shownNextBrick) {
+            generateNextBrickPanel(brick);
+        }
+    }
+
+    private void moveBrickPanel(ViewData brick) {
+        brickPanel.setLayoutX(160 + gamePanel.getLayoutX() + brick.getxPosition() * brickPanel.getVgap() + brick.getxPosition() * BRICK_SIZE);
+        brickPanel.setLayoutY(-42 + gamePanel.getLayoutY() + brick.getyPosition() * brickPanel.getHgap() + brick.getyPosition() * BRICK_SIZE);
+    }
+
+    private void generateNextBrickPanel(ViewData brick) {
+
+        shownNextBrick = brick.nextBrickShape();
+        nextBrick.getChildren().clear();
+        for (int i = 0; i < BrickShape.SIZE; i++) {
+            for (int j = 0; j < BrickShape.SIZE; j++) {
+                Rectangle rectangle = new Rectangle(BRICK_SIZE, BRICK_SIZE);
+                //Fixing random next brick's color issues Samira (Start)
+                setRectangleData(brick.getNextBrickCell(i, j), rectangle);
+                //Fixing random next brick's color issues Samira (End)
+                if (brick.getNextBrickCell(i, j) != 0) {
+                    nextBrick.add(rectangle, j, i);
+                }
+            }
+        }
+    }
+
+    private void setRectangleData(int color, Rectangle rectangle) {
+        rectangle.setFill(CellPalette.fill(color));
+        rectangle.setArcHeight(ARC_SIZE);
+        rectangle.setArcWidth(ARC_SIZE);
+    }
+}
@@ -0,0 +1,245 @@
+package org.depaul.logic.board;
+
+import org.depaul.logic.bricks.Brick;
+import org.depaul.logic.bricks.BrickGenerator;
+import org.depaul.logic.bricks.BrickShape;
+import org.depaul.logic.bricks.RandomBrickGenerator;
+import org.depaul.logic.data.Score;
+import org.depaul.logic.data.ViewData;
+import org.depaul.logic.events.EventSource;
+import org.depaul.logic.events.EventType;
+import org.depaul.logic.events.MoveEvent;
+import org.depaul.logic.rotator.BrickRotator;
+import org.depaul.logic.util.Operations;
+import org.depaul.logic.util.Zobrist;
+
+import java.util.Arrays;
+
+/**
+ * Board that keeps every row as a packed bitmask (bit n == column n) next to a
+ * separate colour plane. Collision, merge and full-row checks work on whole rows
+ * instead of single cells. Same constructor arguments as {@link SimpleBoard}:
+ * "width" is the number of rows and "height" the number of columns.
+ */
+public class BitBoard implements Board {
+
+    private static final int MAX_COLUMNS = Integer.SIZE - 1;
+
+    private final int rows;
+    private final int columns;
+    private final int fullRow;
+    private final BrickGenerator brickGenerator;
+    private final BrickRotator brickRotator;
+    private final int[] rowBits;
+    private final int[][] colours;
+    // Zobrist content hash of every row and the board hash built from them
+    private final long[] rowHash;
+    private long hash;
+    private final Score score;
+    private BoardListener listener;
+
+    private int offsetX;
+    private int offsetY;
+
+    public BitBoard(int width, int height) {
+        this(width, height, new RandomBrickGenerator());
+    }
+
+    public BitBoard(int width, int height, BrickGenerator brickGenerator) {
+        if (height > MAX_COLUMNS) {
+            throw new IllegalArgumentException("BitBoard supports at most " + MAX_COLUMNS + " columns");
+        }
+        this.rows = width;
+        this.columns = height;
+        fullRow = (1 << columns) - 1;
+        rowBits = new int[rows];
+        colours = new int[rows][columns];
+        rowHash = new long[rows];
+        this.brickGenerator = brickGenerator;
+        brickRotator = new BrickRotator();
+        score = new Score();
+    }
+
+    @Override
+    public boolean createNewBrick() {
+        Brick currentBrick = brickGenerator.getBrick();
+        brickRotator.setBrick(currentBrick);
+        offsetX = 3;
+        offsetY = 0;
+        return intersects(brickRotator.getCurrentShape(), offsetX, offsetY);
+    }
+
+    @Override
+    public boolean rotateBrick() {
+        if (!intersects(brickRotator.getNextShape(), offsetX, offsetY)) {
+            brickRotator.setCurrentShapeIndex(brickRotator.getNextShapeIndex());
+        }
+        // conflict on rotate == ignore move
+        return true;
+    }
+
+    @Override
+    public int[][] getBoardMatrix() {
+        return colours;
+    }
+
+    @Override
+    public ViewData getViewData() {
+        return new ViewData(brickRotator.getCurrentShape(), offsetX, offsetY, brickGenerator.getNextBrick().getShape(0));
+    }
+
+    @Override
+    public long getHash() {
+        return hash;
+    }
+
+    @Override
+    public void mergeBrickToBackground() {
+        BrickShape shape = brickRotator.getCurrentShape();
+        for (int j = shape.getMinRow(); j <= shape.getMaxRow(); j++) {
+            rowBits[offsetY + j] |= shift(shape.getRowMask(j), offsetX);
+            hash ^= Zobrist.row(offsetY + j, rowHash[offsetY + j]);
+        }
+        for (int n = 0; n < shape.getCellCount(); n++) {
+            int row = offsetY + shape.getCellRow(n);
+            int col = offsetX + shape.getCellCol(n);
+            if (colours[row][col] != 0) {
+                rowHash[row] ^= Zobrist.cell(col, colours[row][col]);
+            }
+            rowHash[row] ^= Zobrist.cell(col, shape.getCell(shape.getCellRow(n), shape.getCellCol(n)));
+        }
+        Operations.mergeShape(colours, shape, offsetX, offsetY);
+        for (int j = shape.getMinRow(); j <= shape.getMaxRow(); j++) {
+            hash ^= Zobrist.row(offsetY + j, rowHash[offsetY + j]);
+        }
+        if (listener != null) {
+            listener.onBrickMerged(shape, offsetX, offsetY);
+        }
+    }
+
+    @Override
+    public void setBoardListener(BoardListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public int clearLines() {
+        int cleared = 0;
+        long clearedRows = 0;
+        int write = rows - 1;
+        for (int read = rows - 1; read >= 0; read--) {
+            if (rowBits[read] == fullRow) {
+                hash ^= Zobrist.row(read, rowHash[read]);
+                cleared++;
+                clearedRows |= 1L << read;
+                continue;
+            }
+            if (write != read) {
+                // swap the colour rows so every row keeps its own array
+                rowBits[write] = rowBits[read];
+                int[] tmp = colours[write];
+                colours[write] = colours[read];
+                colours[read] = tmp;
+                hash ^= Zobrist.row(read, rowHash[read]) ^ Zobrist.row(write, rowHash[read]);
+                rowHash[write] = rowHash[read];
+            }
+            write--;
+        }
+        if (cleared > 0) {
+            for (int row = write; row >= 0; row--) {
+                rowBits[row] = 0;
+                rowHash[row] = 0;
+                Arrays.fill(colours[row], 0);
+            }
+            if (listener != null) {
+                if (rows <= Long.SIZE) {
+                    listener.onRowsCleared(clearedRows);
+                } else {
+                    listener.onBoardReset();
+                }
+            }
+        }
+        return cleared;
+    }
+
+    @Override
+    public Score getScore() {
+        return score;
+    }
+
+    @Override
+    public void newGame() {
+        Arrays.fill(rowBits, 0);
+        Arrays.fill(rowHash, 0);
+        hash = 0;
+        for (int[] row : colours) {
+            Arrays.fill(row, 0);
+        }
+        score.reset();
+        createNewBrick();
+        if (listener != null) {
+            listener.onBoardReset();
+        }
+    }
+
+    @Override
+    public boolean moveBrick(MoveEvent event) {
+        BrickShape shape = brickRotator.getCurrentShape();
+        boolean conflict = intersects(shape, offsetX, offsetY);
+        if (event.eventSource() != EventSource.THREAD) {
+            return conflict;
+        }
+        EventType type = event.eventType();
+        if (type == EventType.DOWN) {
+            if (intersects(shape, offsetX, offsetY + 1)) {
+                return false;
+            }
+            offsetY++;
+            return true;
+        } else if (type == EventType.LEFT || type == EventType.RIGHT) {
+            int x = type == EventType.LEFT ? offsetX - 1 : offsetX + 1;
+            conflict = intersects(shape, x, offsetY);
+            if (!conflict) {
+                offsetX = x;
+                return true;
+            }
+        } else if (type == EventType.SPACE) {
+            int y = offsetY;
+            while (!intersects(shape, offsetX, y)) {
+                y++;
+            }
+            offsetY = y - 1;
+            return true;
+        } else if (type == EventType.UP) {
+            if (!conflict) {
+                return true;
+            }
+        } else if (type == EventType.Z) {
+            return rotateBrick();
+        }
+        return conflict;
+    }
+
+    private boolean intersects(BrickShape shape, int x, int y) {
+        for (int j = shape.getMinRow(); j <= shape.getMaxRow(); j++) {
+            int mask = shape.getRowMask(j);
+            int row = y + j;
+            if (row < 0 || row >= rows) {
+                return true;
+            }
+            if (x < 0 && (mask & ((1 << -x) - 1)) != 0) {
+                // cells shifted past the left wall
+                return true;
+            }
+            int shifted = shift(mask, x);
+            if ((shifted & ~fullRow) != 0 || (rowBits[row] & shifted) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int shift(int mask, int x) {
+        return x >= 0 ? mask << x : mask >>> -x;
+    }
+}
@@ -19,7 +19,19 @@ public interface Board {
 
     int clearLines();
 
+    /**
+     * 64-bit Zobrist hash of the background, updated by merge and clear.
+     * Equals {@link org.depaul.logic.util.Zobrist#hash} of the board matrix.
+     */
+    long getHash();
+
     Score getScore();
 
+    /**
+     * Reports merges, line clears and resets to {@code listener}, null for
+     * none. Boards taller than 64 rows report clears as a reset.
+     */
+    void setBoardListener(BoardListener listener);
+
     void newGame();
 }
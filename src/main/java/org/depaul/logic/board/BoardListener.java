@@ -0,0 +1,23 @@
+package org.depaul.logic.board;
+
+import org.depaul.logic.bricks.BrickShape;
+
+/**
+ * Changes to a board's background as the board makes them, so observers can
+ * follow along without diffing matrices. Called on the thread that changes
+ * the board; methods default to doing nothing.
+ */
+public interface BoardListener {
+
+    // the brick's cells were written into the background at (x, y)
+    default void onBrickMerged(BrickShape shape, int x, int y) {
+    }
+
+    // bit n set for every full row n removed, numbered before the rows above moved down
+    default void onRowsCleared(long rowMask) {
+    }
+
+    // the background was replaced wholesale: new game, load or restore
+    default void onBoardReset() {
+    }
+}
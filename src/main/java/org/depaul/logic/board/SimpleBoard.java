@@ -2,6 +2,8 @@ package org.depaul.logic.board;
 
 import org.depaul.logic.bricks.Brick;
 import org.depaul.logic.bricks.BrickGenerator;
+import org.depaul.logic.bricks.BrickShape;
+import org.depaul.logic.bricks.Bricks;
 import org.depaul.logic.bricks.RandomBrickGenerator;
 import org.depaul.logic.data.Score;
 import org.depaul.logic.data.ViewData;
@@ -10,8 +12,12 @@ import org.depaul.logic.events.EventType;
 import org.depaul.logic.events.MoveEvent;
 import org.depaul.logic.rotator.BrickRotator;
 import org.depaul.logic.util.Operations;
+import org.depaul.logic.util.Varint;
+import org.depaul.logic.util.Zobrist;
 
 import java.awt.*;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 public class SimpleBoard implements Board {
 
@@ -20,14 +26,37 @@ public class SimpleBoard implements Board {
     private final BrickGenerator brickGenerator;
     private final BrickRotator brickRotator;
     private int[][] currentGameMatrix;
-    private Point currentOffset;
+    // number of filled cells in every row, kept up to date by merge and clear
+    private final int[] rowFill;
+    // rows touched since the last clearLines, empty when top > bottom
+    private int changedTop;
+    private int changedBottom = -1;
+    // skyline: row of the highest filled cell of every column, width when empty
+    private final int[] columnTop;
+    // Zobrist content hash of every row and the board hash built from them
+    private final long[] rowHash;
+    private long hash;
+    // mutated in place, moves never allocate a new Point
+    private final Point currentOffset = new Point();
     private final Score score;
+    // last snapshot handed out by getViewData
+    private ViewData viewData;
+    private BoardListener listener;
 
     public SimpleBoard(int width, int height) {
+        this(width, height, new RandomBrickGenerator());
+    }
+
+    public SimpleBoard(int width, int height, BrickGenerator brickGenerator) {
         this.width = width;
         this.height = height;
         currentGameMatrix = new int[width][height];
-        brickGenerator = new RandomBrickGenerator();
+        rowFill = new int[width];
+        changedTop = width;
+        columnTop = new int[height];
+        Arrays.fill(columnTop, width);
+        rowHash = new long[width];
+        this.brickGenerator = brickGenerator;
         brickRotator = new BrickRotator();
         score = new Score();
     }
@@ -36,15 +65,18 @@ public class SimpleBoard implements Board {
     public boolean createNewBrick() {
         Brick currentBrick = brickGenerator.getBrick();
         brickRotator.setBrick(currentBrick);
-        currentOffset = new Point(3, 0);
-        return Operations.intersectMatrix(currentGameMatrix, brickRotator.getCurrentShapeMatrix(), (int) currentOffset.getX(), (int) currentOffset.getY());
+        currentOffset.setLocation(3, 0);
+        BrickShape shape = brickRotator.getCurrentShape();
+        if (dropDistance(shape, currentOffset.x, currentOffset.y) >= 0) {
+            // spawned entirely above the skyline, nothing to collide with
+            return false;
+        }
+        return isConflict(shape, currentOffset.x, currentOffset.y);
     }
 
     @Override
     public boolean rotateBrick() {
-        int[][] currentMatrix = Operations.copyMatrix(currentGameMatrix);
-        Point p = new Point(currentOffset);
-        boolean conflict = Operations.intersectMatrix(currentMatrix, brickRotator.getNextShapeMatrix(), (int) p.getX(), (int) p.getY());
+        boolean conflict = isConflict(brickRotator.getNextShape(), currentOffset.x, currentOffset.y);
         if (conflict) {
             // conflict on rotate == ignore move
             return true;
@@ -61,60 +93,273 @@ public class SimpleBoard implements Board {
 
     @Override
     public ViewData getViewData() {
-        return new ViewData(brickRotator.getCurrentShapeMatrix(), (int) currentOffset.getX(), (int) currentOffset.getY(), brickGenerator.getNextBrick().getBrickMatrixList().get(0));
+        BrickShape shape = brickRotator.getCurrentShape();
+        BrickShape next = brickGenerator.getNextBrick().getShape(0);
+        ViewData cached = viewData;
+        // a new snapshot only when the brick moved, turned or was replaced
+        if (cached == null || cached.brickShape() != shape || cached.nextBrickShape() != next
+                || cached.xPosition() != currentOffset.x || cached.yPosition() != currentOffset.y) {
+            cached = new ViewData(shape, currentOffset.x, currentOffset.y, next);
+            viewData = cached;
+        }
+        return cached;
+    }
+
+    @Override
+    public long getHash() {
+        return hash;
     }
 
     @Override
     public void mergeBrickToBackground() {
-        currentGameMatrix = Operations.mergeMatrix(currentGameMatrix, brickRotator.getCurrentShapeMatrix(), (int) currentOffset.getX(), (int) currentOffset.getY());
+        BrickShape shape = brickRotator.getCurrentShape();
+        int x = currentOffset.x;
+        int y = currentOffset.y;
+        for (int row = y + shape.getMinRow(); row <= y + shape.getMaxRow(); row++) {
+            hash ^= Zobrist.row(row, rowHash[row]);
+        }
+        for (int n = 0; n < shape.getCellCount(); n++) {
+            int shapeRow = shape.getCellRow(n);
+            int shapeCol = shape.getCellCol(n);
+            int row = y + shapeRow;
+            int col = x + shapeCol;
+            int old = currentGameMatrix[row][col];
+            if (old == 0) {
+                rowFill[row]++;
+            } else {
+                rowHash[row] ^= Zobrist.cell(col, old);
+            }
+            int colour = shape.getCell(shapeRow, shapeCol);
+            currentGameMatrix[row][col] = colour;
+            rowHash[row] ^= Zobrist.cell(col, colour);
+            columnTop[col] = Math.min(columnTop[col], row);
+        }
+        for (int row = y + shape.getMinRow(); row <= y + shape.getMaxRow(); row++) {
+            hash ^= Zobrist.row(row, rowHash[row]);
+        }
+        markRowsChanged(y + shape.getMinRow(), y + shape.getMaxRow());
+        if (listener != null) {
+            listener.onBrickMerged(shape, x, y);
+        }
     }
 
-    private void shiftRowsDown(int from_row)
-    {
-        assert(from_row >= 0 && from_row < width);
-        for(int i = from_row; i > 0; i--)
-        {
-            // Java 2D arrays should be an array of references, so this should work
-            // Kinda evil if you ask me
-            // - Klaudius
-            int[] arr = currentGameMatrix[i];
-            currentGameMatrix[i] = currentGameMatrix[i - 1];
-            currentGameMatrix[i - 1] = arr;
+    @Override
+    public void setBoardListener(BoardListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Replaces the background with a copy of {@code matrix} and recounts the
+     * rows. Writing into {@link #getBoardMatrix()} directly bypasses the
+     * counters, so anything that sets up a board should come through here.
+     */
+    public void loadBoardMatrix(int[][] matrix) {
+        for (int row = 0; row < width; row++) {
+            System.arraycopy(matrix[row], 0, currentGameMatrix[row], 0, height);
         }
+        recount();
     }
-    private void zeroOutRow(int row)
-    {
-        assert(row >= 0 && row < width);
-        for(int col = 0; col < height; col++)
-        {
-            currentGameMatrix[row][col] = 0;
+
+    private void recount() {
+        hash = 0;
+        for (int row = 0; row < width; row++) {
+            rowFill[row] = 0;
+            for (int col = 0; col < height; col++) {
+                if (currentGameMatrix[row][col] != 0) {
+                    rowFill[row]++;
+                }
+            }
+            rowHash[row] = Zobrist.rowHash(currentGameMatrix[row]);
+            hash ^= Zobrist.row(row, rowHash[row]);
+        }
+        Arrays.fill(columnTop, 0);
+        updateSkyline();
+        markRowsChanged(0, width - 1);
+        if (listener != null) {
+            listener.onBoardReset();
+        }
+    }
+
+    /**
+     * Writes the background, two cells per byte, and the falling brick: its
+     * id, rotation and offset. Colours must fit in four bits.
+     */
+    public void writeState(ByteBuffer out) {
+        Varint.putLong(out, width);
+        Varint.putLong(out, height);
+        int pending = -1;
+        for (int row = 0; row < width; row++) {
+            int[] cells = currentGameMatrix[row];
+            for (int col = 0; col < height; col++) {
+                if (pending < 0) {
+                    pending = cells[col];
+                } else {
+                    out.put((byte) (pending | cells[col] << 4));
+                    pending = -1;
+                }
+            }
+        }
+        if (pending >= 0) {
+            out.put((byte) pending);
+        }
+        out.put((byte) Bricks.idOf(brickRotator.getBrick()));
+        out.put((byte) brickRotator.getCurrentShapeIndex());
+        out.putShort((short) currentOffset.x);
+        out.putShort((short) currentOffset.y);
+    }
+
+    /** Restores what {@link #writeState} wrote, the board size must match. */
+    public void readState(ByteBuffer in) {
+        int rows = Varint.getInt(in);
+        int columns = Varint.getInt(in);
+        if (rows != width || columns != height) {
+            throw new IllegalArgumentException("saved board is " + rows + "x" + columns + ", this one " + width + "x" + height);
+        }
+        int packed = 0;
+        boolean high = false;
+        for (int row = 0; row < width; row++) {
+            int[] cells = currentGameMatrix[row];
+            for (int col = 0; col < height; col++) {
+                if (high) {
+                    cells[col] = packed >>> 4;
+                } else {
+                    packed = in.get() & 0xFF;
+                    cells[col] = packed & 0xF;
+                }
+                high = !high;
+            }
+        }
+        recount();
+        int brick = in.get();
+        if (brick < 0 || brick >= Bricks.count()) {
+            throw new IllegalArgumentException("unknown brick " + brick);
+        }
+        brickRotator.setBrick(Bricks.get(brick));
+        int rotation = in.get();
+        if (rotation < 0 || rotation >= brickRotator.getBrick().getRotationCount()) {
+            throw new IllegalArgumentException("brick " + brick + " has no rotation " + rotation);
         }
+        brickRotator.setCurrentShapeIndex(rotation);
+        currentOffset.setLocation(in.getShort(), in.getShort());
     }
-    private boolean isRowFull(int row)
+
+    public BrickGenerator getBrickGenerator() {
+        return brickGenerator;
+    }
+
+    private void markRowsChanged(int top, int bottom) {
+        changedTop = Math.min(changedTop, top);
+        changedBottom = Math.max(changedBottom, bottom);
+    }
+
+    private void zeroOutRow(int row)
     {
         assert(row >= 0 && row < width);
-        for(int col = 0; col < height; col++)
-        {
-            if(currentGameMatrix[row][col] == 0)
-                return false;
-        }
-        return true;
+        Arrays.fill(currentGameMatrix[row], 0);
+        rowFill[row] = 0;
+        rowHash[row] = 0;
     }
+
+    // Only rows changed since the last call can have become full, and a
+    // lock touches at most four of them
     @Override
     public int clearLines() {
+        int lowestFullRow = -1;
+        for (int row = changedBottom; row >= changedTop; row--) {
+            if (rowFill[row] == height) {
+                lowestFullRow = row;
+                break;
+            }
+        }
+        changedTop = width;
+        changedBottom = -1;
+        if (lowestFullRow < 0) {
+            return 0;
+        }
+
+        // Compact everything between the lowest full row and the top of the
+        // stack in a single pass, the empty rows above it stay where they are.
+        // Rows are swapped rather than copied so each row keeps its own array
+        int stackTop = width;
+        for (int col = 0; col < height; col++) {
+            stackTop = Math.min(stackTop, columnTop[col]);
+        }
+        // every row from the lowest full one up to the stack top moves or
+        // goes, take them out of the hash and put the moved ones back after
+        for (int row = lowestFullRow; row >= stackTop; row--) {
+            hash ^= Zobrist.row(row, rowHash[row]);
+        }
         int num_cleared_lines = 0;
-        for(int row = 0; row < width; row++)
-        {
-            if(isRowFull(row))
-            {
+        long clearedRows = 0;
+        int write = lowestFullRow;
+        for (int read = lowestFullRow; read >= stackTop; read--) {
+            if (rowFill[read] == height) {
                 num_cleared_lines++;
-                zeroOutRow(row);
-                shiftRowsDown(row);
+                clearedRows |= 1L << read;
+                continue;
+            }
+            if (write != read) {
+                int[] arr = currentGameMatrix[write];
+                currentGameMatrix[write] = currentGameMatrix[read];
+                currentGameMatrix[read] = arr;
+                rowFill[write] = rowFill[read];
+                rowHash[write] = rowHash[read];
+            }
+            hash ^= Zobrist.row(write, rowHash[write]);
+            write--;
+        }
+        for (int row = write; row >= stackTop; row--) {
+            zeroOutRow(row);
+        }
+        updateSkyline();
+        if (listener != null) {
+            if (width <= Long.SIZE) {
+                listener.onRowsCleared(clearedRows);
+            } else {
+                listener.onBoardReset();
             }
         }
         return num_cleared_lines;
     }
 
+    // Rows only ever move down, so every column's top can only drop: scan
+    // down from the previous top to the first filled cell
+    private void updateSkyline() {
+        for (int col = 0; col < height; col++) {
+            int row = columnTop[col];
+            while (row < width && currentGameMatrix[row][col] == 0) {
+                row++;
+            }
+            columnTop[col] = row;
+        }
+    }
+
+    /**
+     * How far the brick at (x, y) can fall, read off the skyline and the
+     * brick's bottom profile in one pass over its columns. Returns -1 when the
+     * skyline cannot tell, because the brick is outside the board or already
+     * below the top of one of its columns (tucked under an overhang); callers
+     * then fall back to a cell by cell check.
+     */
+    private int dropDistance(BrickShape shape, int x, int y) {
+        if (x + shape.getMinCol() < 0 || x + shape.getMaxCol() >= height) {
+            return -1;
+        }
+        int distance = Integer.MAX_VALUE;
+        for (int col = shape.getMinCol(); col <= shape.getMaxCol(); col++) {
+            int bottom = shape.getBottom(col);
+            if (bottom < 0) {
+                continue;
+            }
+            int free = columnTop[x + col] - 1 - (y + bottom);
+            if (free < 0) {
+                return -1;
+            }
+            distance = Math.min(distance, free);
+        }
+        return distance;
+    }
+
     @Override
     public Score getScore() {
         return score;
@@ -123,57 +368,63 @@ public class SimpleBoard implements Board {
     @Override
     public void newGame() {
         currentGameMatrix = new int[width][height];
+        Arrays.fill(rowFill, 0);
+        Arrays.fill(columnTop, width);
+        Arrays.fill(rowHash, 0);
+        hash = 0;
+        changedTop = width;
+        changedBottom = -1;
         score.reset();
         createNewBrick();
+        if (listener != null) {
+            listener.onBoardReset();
+        }
     }
 
     @Override
     public boolean moveBrick(MoveEvent event) {
-        int[][] currentMatrix = Operations.copyMatrix(currentGameMatrix);
-        int[][] currentBrickMatrix = brickRotator.getCurrentShapeMatrix();
-        int[][] nextRotateBrickMatrix = brickRotator.getNextShapeMatrix(); //rotated 1 time
-        Point p = new Point(currentOffset);
+        BrickShape currentBrickShape = brickRotator.getCurrentShape();
+        int x = currentOffset.x;
+        int y = currentOffset.y;
         // We must see if there is a conflict with the move 
         //if shape is still moveable after the move then return true
-        boolean conflict = isConflict(currentMatrix, currentBrickMatrix, p);
+        boolean conflict = isConflict(currentBrickShape, x, y);
 
         if(event.eventType() == EventType.DOWN && event.eventSource() == EventSource.THREAD) {
-            p.translate(0,1); // Move the brick 
-            conflict = isConflict(currentMatrix, currentBrickMatrix, p);
+            conflict = isConflict(currentBrickShape, x, y + 1);
             if(conflict) {
                 return false;
             } else {
-                currentOffset = p;
+                currentOffset.translate(0, 1); // Move the brick
                 return true;
             }
         } else if (event.eventType() == EventType.LEFT && event.eventSource() == EventSource.THREAD) {
-            p.translate(-1,0); 
-            conflict = isConflict(currentMatrix, currentBrickMatrix, p);
+            conflict = isConflict(currentBrickShape, x - 1, y);
             if(!conflict) {
-                currentOffset = p;
+                currentOffset.translate(-1, 0);
                 return true;
             } 
         } else if (event.eventType() == EventType.RIGHT && event.eventSource() == EventSource.THREAD) {
-            p.translate(1,0); 
-            conflict = isConflict(currentMatrix, currentBrickMatrix, p);
+            conflict = isConflict(currentBrickShape, x + 1, y);
             if(!conflict) {
-                currentOffset = p;
+                currentOffset.translate(1, 0);
                 return true;
             } 
         } else if (event.eventType() == EventType.SPACE && event.eventSource() == EventSource.THREAD) {
-            conflict = isConflict(currentMatrix, currentBrickMatrix, p);
+            int distance = conflict ? -1 : dropDistance(currentBrickShape, x, y);
+            if (distance >= 0) {
+                currentOffset.y = y + distance;
+                return true;
+            }
             while (!conflict) {
-                p.translate(0, 1);
-                conflict = isConflict(currentMatrix, currentBrickMatrix, p);
+                y++;
+                conflict = isConflict(currentBrickShape, x, y);
             }
-            p.translate(0, -1);
-            currentOffset = p;
+            currentOffset.y = y - 1;
             return true;
 
         } else if (event.eventType() == EventType.UP && event.eventSource() == EventSource.THREAD) {
-            conflict = isConflict(currentMatrix, currentBrickMatrix, p);
             if(!conflict) {
-                currentOffset = p;
                 return true;
             } 
 
@@ -184,8 +435,8 @@ public class SimpleBoard implements Board {
         return conflict;
     }
 
-    private boolean isConflict(int[][] currentMatrix, int[][] currentBrickMatrix, Point p) {
-        boolean conflict = Operations.intersectMatrix(currentMatrix, currentBrickMatrix, (int) p.getX(), (int) p.getY());
-        return conflict;
+    // reads the board in place, the brick is only placed virtually at (x, y)
+    private boolean isConflict(BrickShape currentBrickShape, int x, int y) {
+        return Operations.intersectMatrix(currentGameMatrix, currentBrickShape, x, y);
     }
 }
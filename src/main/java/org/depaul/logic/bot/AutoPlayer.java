@@ -0,0 +1,187 @@
+package org.depaul.logic.bot;
+
+import org.depaul.logic.board.Board;
+import org.depaul.logic.bricks.BrickShape;
+import org.depaul.logic.bricks.Bricks;
+import org.depaul.logic.data.ViewData;
+import org.depaul.logic.engine.GameEngine;
+import org.depaul.logic.events.EventSource;
+import org.depaul.logic.events.EventType;
+import org.depaul.logic.events.MoveEvent;
+import org.depaul.logic.sim.MovePolicy;
+
+/**
+ * Plays the game with a {@link PlacementSearch}: when a brick appears it
+ * searches once, looking at the preview brick too, then steers the brick to
+ * the chosen placement one move at a time.
+ * <p>
+ * Gravity may run alongside, so every move is chosen from where the brick
+ * actually is: a tuck soft drops until it reaches its row rather than
+ * counting rows, and if the brick is anywhere the plan did not expect (it
+ * fell while still rotating or sliding, or a move was blocked) the search
+ * runs again from there. A new brick, however it arrived, starts a new plan.
+ */
+public class AutoPlayer implements MovePolicy {
+
+    private static final MoveEvent ROTATE = new MoveEvent(EventType.Z, EventSource.THREAD);
+    private static final MoveEvent LEFT = new MoveEvent(EventType.LEFT, EventSource.THREAD);
+    private static final MoveEvent RIGHT = new MoveEvent(EventType.RIGHT, EventSource.THREAD);
+    private static final MoveEvent DOWN = new MoveEvent(EventType.DOWN, EventSource.THREAD);
+    private static final MoveEvent DROP = new MoveEvent(EventType.SPACE, EventSource.THREAD);
+
+    private enum Phase { ROTATE, SLIDE, SINK, TUCK, DROP, LOCK, STUCK }
+
+    private final PlacementSearch search;
+    private final boolean lookahead;
+    private int plannedFor = -1;
+    private long replans;
+
+    // the placement being played
+    private Phase phase;
+    private int rotationCount;
+    private int rotation;
+    private int slideX;
+    private boolean tuck;
+    private int dropY;
+    private int finalX;
+    private int finalY;
+
+    // where the last move should have left the brick, gravity aside
+    private int expectRotation;
+    private int expectX;
+    private int expectY;
+
+    public AutoPlayer(int rows, int columns) {
+        this(new PlacementSearch(rows, columns, PlacementHeuristic.DEFAULT), true);
+    }
+
+    public AutoPlayer(PlacementSearch search, boolean lookahead) {
+        this.search = search;
+        this.lookahead = lookahead;
+    }
+
+    @Override
+    public MoveEvent nextMove(GameEngine engine) {
+        ViewData view = engine.getBoard().getViewData();
+        int r = view.brickShape().getRotation();
+        int x = view.getxPosition();
+        int y = view.getyPosition();
+        if (engine.getPiecesPlaced() != plannedFor) {
+            EvaluationCache cache = search.getCache();
+            if (cache != null) {
+                // boards from earlier pieces are the first to go
+                cache.newGeneration();
+            }
+            plan(engine, view);
+        } else if (!onPlan(r, x, y)) {
+            replans++;
+            plan(engine, view);
+        }
+        return move(r, x, y);
+    }
+
+    private boolean onPlan(int r, int x, int y) {
+        if (r != expectRotation || x != expectX) {
+            return false;
+        }
+        switch (phase) {
+            case ROTATE:
+            case SLIDE:
+                // rotations and slides were searched at this row
+                return y == expectY;
+            case SINK:
+                return y >= expectY && y <= dropY;
+            case TUCK:
+                return y == dropY;
+            case LOCK:
+                return y == finalY;
+            default:
+                return true;
+        }
+    }
+
+    private void plan(GameEngine engine, ViewData view) {
+        Board board = engine.getBoard();
+        BrickShape shape = view.brickShape();
+        int next = lookahead ? view.nextBrickShape().getColour() - 1 : -1;
+        plannedFor = engine.getPiecesPlaced();
+        if (!search.search(board.getBoardMatrix(), shape.getColour() - 1, shape.getRotation(),
+                view.getxPosition(), view.getyPosition(), next)) {
+            // stuck where it spawned, the game is about to end
+            phase = Phase.STUCK;
+            return;
+        }
+        phase = Phase.ROTATE;
+        rotationCount = Bricks.get(shape.getColour() - 1).getRotationCount();
+        rotation = search.getBestRotation();
+        slideX = search.getBestSlideX();
+        tuck = search.isBestTuck();
+        dropY = search.getBestDropY();
+        finalX = search.getBestX();
+        finalY = search.getBestY();
+    }
+
+    private MoveEvent move(int r, int x, int y) {
+        expectRotation = r;
+        expectX = x;
+        expectY = y;
+        switch (phase) {
+            case ROTATE:
+                if (r != rotation) {
+                    expectRotation = (r + 1) % rotationCount;
+                    return ROTATE;
+                }
+                phase = Phase.SLIDE;
+                // fall through
+            case SLIDE:
+                if (x != slideX) {
+                    return slide(x, slideX);
+                }
+                phase = Phase.SINK;
+                // fall through
+            case SINK:
+                if (tuck && y < dropY) {
+                    expectY = y + 1;
+                    return DOWN;
+                }
+                phase = Phase.TUCK;
+                // fall through
+            case TUCK:
+                if (x != finalX) {
+                    return slide(x, finalX);
+                }
+                phase = Phase.DROP;
+                // fall through
+            case DROP:
+                phase = Phase.LOCK;
+                expectY = finalY;
+                return DROP;
+            default:
+                // resting where it should, the DOWN that finds it resting locks it
+                return DOWN;
+        }
+    }
+
+    private MoveEvent slide(int x, int to) {
+        expectX = to < x ? x - 1 : x + 1;
+        return to < x ? LEFT : RIGHT;
+    }
+
+    /** Times the brick strayed from the plan and the search ran again. */
+    public long getReplans() {
+        return replans;
+    }
+
+    // where the current plan puts the brick
+    int getTargetRotation() {
+        return rotation;
+    }
+
+    int getTargetX() {
+        return finalX;
+    }
+
+    int getTargetY() {
+        return finalY;
+    }
+}
@@ -0,0 +1,161 @@
+package org.depaul.logic.bot;
+
+import org.depaul.logic.util.SplitMix64;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size transposition table for board evaluations, keyed by board hash
+ * plus the current and next brick. Entries are 16 bytes in one flat
+ * {@link AtomicLongArray}, four to a bucket so a probe stays in one cache line.
+ * <p>
+ * Lock-free: an entry is written as {@code (check ^ score, score)} where
+ * {@code check} holds the key's high bits, depth and generation. A reader only
+ * accepts an entry whose two words agree, so two writers racing on a slot cost
+ * a miss, never a wrong score. A full bucket gives up the entry of an older
+ * generation first, then the shallowest one.
+ * <p>
+ * Scores are only comparable under one heuristic; share a cache between
+ * searches that use the same one.
+ */
+public final class EvaluationCache {
+
+    private static final int BYTES_PER_ENTRY = 2 * Long.BYTES;
+    private static final int BUCKET_ENTRIES = 4;
+    private static final long DEPTH_MASK = 0xF;
+    private static final int GENERATION_SHIFT = 4;
+    private static final long GENERATION_MASK = 0xFF;
+    // the low 12 bits of check hold depth and generation, the rest is key
+    private static final long KEY_MASK = ~0xFFFL;
+    private static final long EMPTY = 0;
+
+    private final AtomicLongArray table;
+    private final int bucketMask;
+    private volatile int generation = 1;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /** A table of at most {@code megabytes}, rounded down to a power of two entries. */
+    public EvaluationCache(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("cache needs at least 1 MB, got " + megabytes);
+        }
+        long entries = Long.highestOneBit((long) megabytes * 1024 * 1024 / BYTES_PER_ENTRY);
+        // two longs per entry, keep the array index within an int
+        entries = Math.min(entries, 1 << 29);
+        table = new AtomicLongArray((int) entries * 2);
+        bucketMask = (int) (entries / BUCKET_ENTRIES) - 1;
+    }
+
+    /** Combines a board hash with the brick being placed and the one after it. */
+    public static long key(long boardHash, int brickId, int nextBrickId) {
+        long bricks = SplitMix64.mix((brickId + 2) * 0x9E3779B97F4A7C15L + (nextBrickId + 2));
+        // only the high bits are checked on lookup, the mix spreads every input bit into them
+        long key = SplitMix64.mix(boardHash ^ bricks);
+        // 0 marks an empty slot
+        return key == EMPTY ? 1 : key;
+    }
+
+    /**
+     * Score stored under {@code key} by a search at least {@code minDepth}
+     * deep, or NaN when there is none.
+     */
+    public double get(long key, int minDepth) {
+        int base = bucket(key);
+        for (int i = base; i < base + 2 * BUCKET_ENTRIES; i += 2) {
+            long data = table.getOpaque(i + 1);
+            long check = table.getOpaque(i) ^ data;
+            if ((check & KEY_MASK) == (key & KEY_MASK) && check != EMPTY && (check & DEPTH_MASK) >= minDepth) {
+                hits.increment();
+                return Double.longBitsToDouble(data);
+            }
+        }
+        misses.increment();
+        return Double.NaN;
+    }
+
+    /** Stores a score found by a search {@code depth} deep, 0 to 15. */
+    public void put(long key, int depth, double score) {
+        int base = bucket(key);
+        int current = generation;
+        int victim = -1;
+        int victimValue = Integer.MAX_VALUE;
+        for (int i = base; i < base + 2 * BUCKET_ENTRIES; i += 2) {
+            long data = table.getOpaque(i + 1);
+            long stored = table.getOpaque(i);
+            long check = stored ^ data;
+            if (stored == EMPTY && data == EMPTY) {
+                victim = i;
+                victimValue = Integer.MIN_VALUE;
+                break;
+            }
+            if ((check & KEY_MASK) == (key & KEY_MASK)) {
+                if ((check & DEPTH_MASK) > depth && generationOf(check) == current) {
+                    // a deeper result from this search is already here
+                    return;
+                }
+                victim = i;
+                victimValue = Integer.MIN_VALUE;
+                break;
+            }
+            // entries of older generations go first, then the shallow ones
+            int value = (int) (check & DEPTH_MASK) + (generationOf(check) == current ? 16 : 0);
+            if (value < victimValue) {
+                victim = i;
+                victimValue = value;
+            }
+        }
+        if (victimValue != Integer.MIN_VALUE) {
+            evictions.increment();
+        }
+        long data = Double.doubleToRawLongBits(score);
+        long check = (key & KEY_MASK) | (long) current << GENERATION_SHIFT | (depth & DEPTH_MASK);
+        table.setOpaque(victim, check ^ data);
+        table.setOpaque(victim + 1, data);
+    }
+
+    /**
+     * Starts a new generation, entries stored before it are replaced first.
+     * Call once per move, not per lookup.
+     */
+    public void newGeneration() {
+        // generation 0 is never current, so wrapping around does not revive old entries for long
+        int next = (generation + 1) & (int) GENERATION_MASK;
+        generation = next == 0 ? 1 : next;
+    }
+
+    public void clear() {
+        for (int i = 0; i < table.length(); i++) {
+            table.setOpaque(i, EMPTY);
+        }
+    }
+
+    private int bucket(long key) {
+        return ((int) (key >>> 32) & bucketMask) * 2 * BUCKET_ENTRIES;
+    }
+
+    private static int generationOf(long check) {
+        return (int) (check >>> GENERATION_SHIFT & GENERATION_MASK);
+    }
+
+    /** Number of entries the table holds. */
+    public int getCapacity() {
+        return table.length() / 2;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /** Stores that pushed out a different entry. */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+}
@@ -0,0 +1,28 @@
+package org.depaul.logic.bot;
+
+/**
+ * Scores the board left behind by a placement, higher is better. Gets the
+ * features as primitives so evaluating a placement never allocates.
+ */
+@FunctionalInterface
+public interface PlacementHeuristic {
+
+    /**
+     * Weights tuned for this feature set by Yiyuan Lee ("El-Tetris"), they
+     * clear lines steadily and keep the stack flat.
+     */
+    PlacementHeuristic DEFAULT = weighted(-0.510066, 0.760666, -0.35663, -0.184483);
+
+    /**
+     * @param linesCleared lines cleared by the placements searched so far
+     * @param holes empty cells with a filled cell somewhere above them
+     * @param aggregateHeight sum of all column heights
+     * @param bumpiness sum of height differences between neighbouring columns
+     */
+    double score(int linesCleared, int holes, int aggregateHeight, int bumpiness);
+
+    static PlacementHeuristic weighted(double height, double lines, double holes, double bumpiness) {
+        return (linesCleared, holeCount, aggregateHeight, bumps) ->
+                height * aggregateHeight + lines * linesCleared + holes * holeCount + bumpiness * bumps;
+    }
+}
@@ -0,0 +1,499 @@
+package org.depaul.logic.bot;
+
+import org.depaul.logic.bricks.Brick;
+import org.depaul.logic.bricks.BrickShape;
+import org.depaul.logic.bricks.Bricks;
+import org.depaul.logic.events.EventSource;
+import org.depaul.logic.events.EventType;
+import org.depaul.logic.events.MoveEvent;
+import org.depaul.logic.util.Zobrist;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Finds the best place for the falling brick, optionally looking one brick
+ * ahead. Every final position the brick can reach is tried: each rotation
+ * that is free at its current position, each column it can slide to, dropped
+ * straight down, plus tucks, where the brick is soft dropped to the stack and
+ * then slid sideways under an overhang. Boards are kept as one bitmask per
+ * row, like {@link org.depaul.logic.board.BitBoard}, so at most 31 columns.
+ * <p>
+ * All working memory is allocated up front; a sequential search allocates
+ * nothing. With a {@link ForkJoinPool} the current brick's candidates are
+ * split across one preallocated shard per worker. Not thread safe, use one
+ * instance per game.
+ * <p>
+ * With an {@link EvaluationCache} the lookahead score of every board the
+ * current brick leaves behind is cached, so placements that end up with the
+ * same board, through another rotation or a tuck, are only looked ahead once.
+ */
+public final class PlacementSearch {
+
+    // SimpleBoard spawns every brick here, rotation 0
+    static final int SPAWN_X = 3;
+    static final int SPAWN_Y = 0;
+
+    private static final int NO_TUCK = Integer.MIN_VALUE;
+    // x can go this far negative when a shape's leftmost cells are empty
+    private static final int X_OFFSET = BrickShape.SIZE - 1;
+    private static final int MAX_COLUMNS = Integer.SIZE - 1;
+
+    private static final MoveEvent ROTATE = new MoveEvent(EventType.Z, EventSource.THREAD);
+    private static final MoveEvent LEFT = new MoveEvent(EventType.LEFT, EventSource.THREAD);
+    private static final MoveEvent RIGHT = new MoveEvent(EventType.RIGHT, EventSource.THREAD);
+    private static final MoveEvent DOWN = new MoveEvent(EventType.DOWN, EventSource.THREAD);
+    private static final MoveEvent DROP = new MoveEvent(EventType.SPACE, EventSource.THREAD);
+
+    private final int rows;
+    private final int columns;
+    private final int fullRow;
+    private final PlacementHeuristic heuristic;
+
+    // row masks: [0] the searched board, [1] after the current brick, [2] after the next one
+    private final int[][] levels;
+    private final int[] heights;
+    // straight drop landing row per x, scratch for finding tucks
+    private final int[] landing;
+    private final int[] tucked;
+
+    // candidates per depth: rotations pressed, column, landing row, tuck column and row
+    private final int[][] candRotations;
+    private final int[][] candX;
+    private final int[][] candY;
+    private final int[][] candTuckX;
+    private final int[][] candTuckY;
+    private final int[] candCount = new int[2];
+
+    private final ForkJoinPool pool;
+    private final PlacementSearch[] shards;
+    private EvaluationCache cache;
+
+    // the searched brick
+    private int brickId;
+    private Brick brick;
+    private int startRotation;
+    private int startX;
+    private int startY;
+    private int nextBrickId;
+
+    // hash of the searched board, only kept with a cache
+    private long boardHash;
+
+    // result, also a shard's local best
+    private int bestIndex;
+    private double bestScore;
+
+    public PlacementSearch(int rows, int columns, PlacementHeuristic heuristic) {
+        this(rows, columns, heuristic, null);
+    }
+
+    public PlacementSearch(int rows, int columns, PlacementHeuristic heuristic, ForkJoinPool pool) {
+        if (columns > MAX_COLUMNS) {
+            throw new IllegalArgumentException("PlacementSearch supports at most " + MAX_COLUMNS + " columns");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        fullRow = (1 << columns) - 1;
+        this.heuristic = heuristic;
+        levels = new int[3][rows];
+        heights = new int[columns];
+        landing = new int[columns + X_OFFSET];
+        tucked = new int[columns + X_OFFSET];
+        // per rotation: one straight drop and at most one tuck per column
+        int maxCandidates = BrickShape.SIZE * 2 * (columns + X_OFFSET);
+        candRotations = new int[2][maxCandidates];
+        candX = new int[2][maxCandidates];
+        candY = new int[2][maxCandidates];
+        candTuckX = new int[2][maxCandidates];
+        candTuckY = new int[2][maxCandidates];
+        this.pool = pool;
+        if (pool != null) {
+            shards = new PlacementSearch[pool.getParallelism()];
+            for (int i = 0; i < shards.length; i++) {
+                shards[i] = new PlacementSearch(rows, columns, heuristic);
+            }
+        } else {
+            shards = null;
+        }
+    }
+
+    /** Caches lookahead scores in {@code cache}, null to stop caching. */
+    public void setCache(EvaluationCache cache) {
+        this.cache = cache;
+    }
+
+    public EvaluationCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Searches placements of {@code brickId}, currently at ({@code x},
+     * {@code y}) in {@code rotation}, on {@code board}. With {@code nextBrickId}
+     * >= 0 each placement is scored by the best placement of that brick after
+     * it, spawned at the usual spot. Returns false when the brick has nowhere
+     * to go.
+     */
+    public boolean search(int[][] board, int brickId, int rotation, int x, int y, int nextBrickId) {
+        int[] masks = levels[0];
+        for (int row = 0; row < rows; row++) {
+            int mask = 0;
+            int[] cells = board[row];
+            for (int col = 0; col < columns; col++) {
+                if (cells[col] != 0) {
+                    mask |= 1 << col;
+                }
+            }
+            masks[row] = mask;
+        }
+        if (cache != null && nextBrickId >= 0) {
+            boardHash = hash(masks, rows - 1);
+        }
+        this.brickId = brickId;
+        brick = Bricks.get(brickId);
+        startRotation = rotation;
+        startX = x;
+        startY = y;
+        this.nextBrickId = nextBrickId;
+        int count = generate(0, masks, brick, rotation, x, y);
+
+        bestIndex = -1;
+        bestScore = Double.NEGATIVE_INFINITY;
+        if (shards == null || count < 2 * shards.length) {
+            scoreRange(this, 0, count);
+        } else {
+            pool.invoke(new ShardTask(this, count));
+            for (PlacementSearch shard : shards) {
+                // ties go to the lowest index, so the result does not depend on the split
+                if (shard.bestIndex >= 0 && (bestIndex < 0 || shard.bestScore > bestScore
+                        || shard.bestScore == bestScore && shard.bestIndex < bestIndex)) {
+                    bestIndex = shard.bestIndex;
+                    bestScore = shard.bestScore;
+                }
+            }
+        }
+        return bestIndex >= 0;
+    }
+
+    private static final class ShardTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final PlacementSearch master;
+        private final int count;
+
+        ShardTask(PlacementSearch master, int count) {
+            this.master = master;
+            this.count = count;
+        }
+
+        @Override
+        protected void compute() {
+            PlacementSearch[] shards = master.shards;
+            RecursiveAction[] parts = new RecursiveAction[shards.length];
+            for (int i = 0; i < shards.length; i++) {
+                PlacementSearch shard = shards[i];
+                int from = (int) ((long) count * i / shards.length);
+                int to = (int) ((long) count * (i + 1) / shards.length);
+                parts[i] = new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        shard.bestIndex = -1;
+                        shard.bestScore = Double.NEGATIVE_INFINITY;
+                        shard.scoreRange(master, from, to);
+                    }
+                };
+            }
+            invokeAll(parts);
+        }
+    }
+
+    // scores master's depth 0 candidates [from, to) using this instance's scratch
+    private void scoreRange(PlacementSearch master, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double score = scoreCandidate(master, i);
+            if (bestIndex < 0 || score > bestScore) {
+                bestIndex = i;
+                bestScore = score;
+            }
+        }
+    }
+
+    private double scoreCandidate(PlacementSearch master, int i) {
+        BrickShape shape = master.shapeOf(master.brick, master.startRotation, master.candRotations[0][i]);
+        int x = master.finalX(0, i);
+        int y = master.finalY(0, i);
+        int lines = place(master.levels[0], levels[1], shape, x, y);
+        if (master.nextBrickId < 0) {
+            return evaluate(levels[1], lines);
+        }
+        EvaluationCache cache = master.cache;
+        long key = 0;
+        if (cache != null) {
+            // the brick only changed its own rows, unless it cleared lines and everything above moved
+            int bottom = y + shape.getMaxRow();
+            long hash = lines > 0 ? master.boardHash ^ hash(master.levels[0], bottom) ^ hash(levels[1], bottom)
+                    : master.boardHash ^ hash(master.levels[0], y + shape.getMinRow(), bottom)
+                    ^ hash(levels[1], y + shape.getMinRow(), bottom);
+            // the heuristic sees both bricks' lines, so they are part of the key
+            key = EvaluationCache.key(hash + lines, master.brickId, master.nextBrickId);
+            double cached = cache.get(key, 1);
+            if (!Double.isNaN(cached)) {
+                return cached;
+            }
+        }
+        double best = lookahead(master.nextBrickId, lines);
+        if (cache != null) {
+            cache.put(key, 1, best);
+        }
+        return best;
+    }
+
+    // best score of the next brick's placements on levels[1]
+    private double lookahead(int nextBrickId, int lines) {
+        Brick next = Bricks.get(nextBrickId);
+        if (collides(levels[1], next.getShape(0), SPAWN_X, SPAWN_Y)) {
+            // the next brick would end the game
+            return Double.NEGATIVE_INFINITY;
+        }
+        int count = generate(1, levels[1], next, 0, SPAWN_X, SPAWN_Y);
+        double best = Double.NEGATIVE_INFINITY;
+        for (int j = 0; j < count; j++) {
+            BrickShape nextShape = shapeOf(next, 0, candRotations[1][j]);
+            int nextLines = place(levels[1], levels[2], nextShape, finalX(1, j), finalY(1, j));
+            best = Math.max(best, evaluate(levels[2], lines + nextLines));
+        }
+        return best;
+    }
+
+    private static long hash(int[] board, int bottom) {
+        return hash(board, 0, bottom);
+    }
+
+    // rows are colourless here, the mask itself is the row's content hash
+    private static long hash(int[] board, int top, int bottom) {
+        long hash = 0;
+        for (int row = top; row <= bottom; row++) {
+            hash ^= Zobrist.row(row, board[row]);
+        }
+        return hash;
+    }
+
+    private BrickShape shapeOf(Brick brick, int rotation, int pressed) {
+        return brick.getShape((rotation + pressed) % brick.getRotationCount());
+    }
+
+    private int finalX(int depth, int i) {
+        return candTuckX[depth][i] == NO_TUCK ? candX[depth][i] : candTuckX[depth][i];
+    }
+
+    private int finalY(int depth, int i) {
+        return candTuckX[depth][i] == NO_TUCK ? candY[depth][i] : candTuckY[depth][i];
+    }
+
+    // every reachable final position of brick starting at (x, y) in rotation
+    private int generate(int depth, int[] board, Brick brick, int rotation, int x, int y) {
+        int count = 0;
+        for (int pressed = 0; pressed < brick.getRotationCount(); pressed++) {
+            BrickShape shape = shapeOf(brick, rotation, pressed);
+            if (collides(board, shape, x, y)) {
+                // rotating into something is ignored, later rotations are out of reach too
+                break;
+            }
+            Arrays.fill(landing, -1);
+            Arrays.fill(tucked, -1);
+            int left = x;
+            while (!collides(board, shape, left - 1, y)) {
+                left--;
+            }
+            int right = x;
+            while (!collides(board, shape, right + 1, y)) {
+                right++;
+            }
+            for (int column = left; column <= right; column++) {
+                int landed = drop(board, shape, column, y);
+                landing[column + X_OFFSET] = landed;
+                count = add(depth, count, pressed, column, landed, NO_TUCK, 0);
+            }
+            // slide along the stack from every landing spot
+            for (int column = left; column <= right; column++) {
+                int landed = landing[column + X_OFFSET];
+                for (int direction = -1; direction <= 1; direction += 2) {
+                    int tx = column + direction;
+                    while (!collides(board, shape, tx, landed)) {
+                        int ty = drop(board, shape, tx, landed);
+                        int slot = tx + X_OFFSET;
+                        boolean straight = tx >= left && tx <= right && landing[slot] == ty;
+                        if (!straight && tucked[slot] != ty) {
+                            tucked[slot] = ty;
+                            count = add(depth, count, pressed, column, landed, tx, ty);
+                        }
+                        tx += direction;
+                    }
+                }
+            }
+        }
+        candCount[depth] = count;
+        return count;
+    }
+
+    private int add(int depth, int count, int pressed, int x, int y, int tuckX, int tuckY) {
+        if (count == candX[depth].length) {
+            // more tucks than the table was sized for, the rest are skipped
+            return count;
+        }
+        candRotations[depth][count] = pressed;
+        candX[depth][count] = x;
+        candY[depth][count] = y;
+        candTuckX[depth][count] = tuckX;
+        candTuckY[depth][count] = tuckY;
+        return count + 1;
+    }
+
+    private int drop(int[] board, BrickShape shape, int x, int y) {
+        while (!collides(board, shape, x, y + 1)) {
+            y++;
+        }
+        return y;
+    }
+
+    private boolean collides(int[] board, BrickShape shape, int x, int y) {
+        for (int j = shape.getMinRow(); j <= shape.getMaxRow(); j++) {
+            int mask = shape.getRowMask(j);
+            int row = y + j;
+            if (row < 0 || row >= rows) {
+                return true;
+            }
+            if (x < 0 && (mask & ((1 << -x) - 1)) != 0) {
+                return true;
+            }
+            int shifted = x >= 0 ? mask << x : mask >>> -x;
+            if ((shifted & ~fullRow) != 0 || (board[row] & shifted) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // copies from into to with the brick merged and full rows removed, returns lines cleared
+    private int place(int[] from, int[] to, BrickShape shape, int x, int y) {
+        System.arraycopy(from, 0, to, 0, rows);
+        for (int j = shape.getMinRow(); j <= shape.getMaxRow(); j++) {
+            int mask = shape.getRowMask(j);
+            to[y + j] |= x >= 0 ? mask << x : mask >>> -x;
+        }
+        int write = y + shape.getMaxRow();
+        int cleared = 0;
+        for (int read = write; read >= 0; read--) {
+            if (to[read] == fullRow) {
+                cleared++;
+            } else {
+                to[write--] = to[read];
+            }
+        }
+        while (write >= 0) {
+            to[write--] = 0;
+        }
+        return cleared;
+    }
+
+    private double evaluate(int[] board, int lines) {
+        Arrays.fill(heights, 0);
+        int seen = 0;
+        int holes = 0;
+        for (int row = 0; row < rows; row++) {
+            int mask = board[row];
+            holes += Integer.bitCount(seen & ~mask);
+            int fresh = mask & ~seen;
+            while (fresh != 0) {
+                heights[Integer.numberOfTrailingZeros(fresh)] = rows - row;
+                fresh &= fresh - 1;
+            }
+            seen |= mask;
+        }
+        int aggregate = heights[0];
+        int bumpiness = 0;
+        for (int col = 1; col < columns; col++) {
+            aggregate += heights[col];
+            bumpiness += Math.abs(heights[col] - heights[col - 1]);
+        }
+        return heuristic.score(lines, holes, aggregate, bumpiness);
+    }
+
+    /** Number of placements tried for the current brick in the last search. */
+    public int getCandidateCount() {
+        return candCount[0];
+    }
+
+    public double getBestScore() {
+        return bestScore;
+    }
+
+    /** Rotation, column and row the best placement ends in. */
+    public int getBestRotation() {
+        return (startRotation + candRotations[0][bestIndex]) % brick.getRotationCount();
+    }
+
+    public int getBestX() {
+        return finalX(0, bestIndex);
+    }
+
+    public int getBestY() {
+        return finalY(0, bestIndex);
+    }
+
+    /** Column the best placement slides to before dropping, or before its tuck. */
+    public int getBestSlideX() {
+        return candX[0][bestIndex];
+    }
+
+    /** Whether the best placement ends with a slide under an overhang. */
+    public boolean isBestTuck() {
+        return candTuckX[0][bestIndex] != NO_TUCK;
+    }
+
+    /** Row a tuck soft drops to before sliding, the drop row at {@link #getBestSlideX()}. */
+    public int getBestDropY() {
+        return candY[0][bestIndex];
+    }
+
+    /** Upper bound of {@link #writeMoves} for this board size. */
+    public int maxMoves() {
+        return BrickShape.SIZE + 2 * (columns + X_OFFSET) + rows + 2;
+    }
+
+    /**
+     * Writes the moves that take the brick from where it was searched to the
+     * best placement and lock it there, returns how many. Tucks soft drop to
+     * the stack before sliding, so they assume nothing else moves the brick
+     * in between; with gravity running use {@link AutoPlayer}, which follows
+     * the brick as it goes.
+     */
+    public int writeMoves(MoveEvent[] out) {
+        int n = 0;
+        int i = bestIndex;
+        for (int r = 0; r < candRotations[0][i]; r++) {
+            out[n++] = ROTATE;
+        }
+        n = slide(out, n, startX, candX[0][i]);
+        if (candTuckX[0][i] != NO_TUCK) {
+            for (int y = startY; y < candY[0][i]; y++) {
+                out[n++] = DOWN;
+            }
+            n = slide(out, n, candX[0][i], candTuckX[0][i]);
+        }
+        // hard drop, then the DOWN that finds the brick resting and locks it
+        out[n++] = DROP;
+        out[n++] = DOWN;
+        return n;
+    }
+
+    private static int slide(MoveEvent[] out, int n, int from, int to) {
+        MoveEvent step = to < from ? LEFT : RIGHT;
+        for (int x = from; x != to; x += to < from ? -1 : 1) {
+            out[n++] = step;
+        }
+        return n;
+    }
+}
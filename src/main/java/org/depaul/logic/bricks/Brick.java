@@ -5,4 +5,9 @@ import java.util.List;
 public interface Brick {
 
     List<int[][]> getBrickMatrixList();
+
+    /** Shared, immutable shape of the given rotation; never copied. */
+    BrickShape getShape(int rotation);
+
+    int getRotationCount();
 }
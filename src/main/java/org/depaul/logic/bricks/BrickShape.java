@@ -0,0 +1,159 @@
+package org.depaul.logic.bricks;
+
+import java.util.List;
+
+/**
+ * Immutable, precomputed view of one rotation of a brick. Every brick builds its
+ * shapes once when the class is loaded, so readers can query cells, masks and
+ * profiles without copying the underlying matrix.
+ * <p>
+ * Coordinates follow the brick matrices: {@code row} is the Y axis and
+ * {@code col} the X axis of the 4x4 grid.
+ */
+public final class BrickShape {
+
+    public static final int SIZE = 4;
+
+    private final int colour;
+    private final int rotation;
+    private final int[] cells = new int[SIZE * SIZE];
+    private final int[] rowMasks = new int[SIZE];
+    private final int[] leftmost = new int[SIZE];
+    private final int[] rightmost = new int[SIZE];
+    private final int[] bottom = new int[SIZE];
+    private final int[] cellRows;
+    private final int[] cellCols;
+    private final int minRow;
+    private final int maxRow;
+    private final int minCol;
+    private final int maxCol;
+
+    private BrickShape(int[][] matrix, int rotation) {
+        this.rotation = rotation;
+        int count = 0;
+        int colourFound = 0;
+        int top = SIZE;
+        int low = -1;
+        int left = SIZE;
+        int right = -1;
+        for (int row = 0; row < SIZE; row++) {
+            leftmost[row] = -1;
+            rightmost[row] = -1;
+            bottom[row] = -1;
+        }
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                int value = matrix[row][col];
+                cells[row * SIZE + col] = value;
+                if (value == 0) {
+                    continue;
+                }
+                count++;
+                colourFound = value;
+                rowMasks[row] |= 1 << col;
+                if (leftmost[row] < 0) {
+                    leftmost[row] = col;
+                }
+                rightmost[row] = col;
+                bottom[col] = row;
+                top = Math.min(top, row);
+                low = Math.max(low, row);
+                left = Math.min(left, col);
+                right = Math.max(right, col);
+            }
+        }
+        colour = colourFound;
+        minRow = top;
+        maxRow = low;
+        minCol = left;
+        maxCol = right;
+        cellRows = new int[count];
+        cellCols = new int[count];
+        int n = 0;
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                if (matrix[row][col] != 0) {
+                    cellRows[n] = row;
+                    cellCols[n] = col;
+                    n++;
+                }
+            }
+        }
+    }
+
+    static BrickShape[] rotationsOf(List<int[][]> matrices) {
+        BrickShape[] shapes = new BrickShape[matrices.size()];
+        for (int i = 0; i < shapes.length; i++) {
+            shapes[i] = new BrickShape(matrices.get(i), i);
+        }
+        return shapes;
+    }
+
+    public int getColour() {
+        return colour;
+    }
+
+    public int getRotation() {
+        return rotation;
+    }
+
+    public int getCell(int row, int col) {
+        return cells[row * SIZE + col];
+    }
+
+    /** Bit {@code col} is set when the cell at ({@code row}, {@code col}) is filled. */
+    public int getRowMask(int row) {
+        return rowMasks[row];
+    }
+
+    public int getCellCount() {
+        return cellRows.length;
+    }
+
+    public int getCellRow(int i) {
+        return cellRows[i];
+    }
+
+    public int getCellCol(int i) {
+        return cellCols[i];
+    }
+
+    public int getMinRow() {
+        return minRow;
+    }
+
+    public int getMaxRow() {
+        return maxRow;
+    }
+
+    public int getMinCol() {
+        return minCol;
+    }
+
+    public int getMaxCol() {
+        return maxCol;
+    }
+
+    /** Leftmost filled column of {@code row}, or -1 when the row is empty. */
+    public int getLeftmost(int row) {
+        return leftmost[row];
+    }
+
+    /** Rightmost filled column of {@code row}, or -1 when the row is empty. */
+    public int getRightmost(int row) {
+        return rightmost[row];
+    }
+
+    /** Lowest filled row of {@code col}, or -1 when the column is empty. */
+    public int getBottom(int col) {
+        return bottom[col];
+    }
+
+    public int[][] toMatrix() {
+        int[][] matrix = new int[SIZE][SIZE];
+        for (int row = 0; row < SIZE; row++) {
+            System.arraycopy(cells, row * SIZE, matrix[row], 0, SIZE);
+        }
+        return matrix;
+    }
+}
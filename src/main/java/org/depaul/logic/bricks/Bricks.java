@@ -0,0 +1,29 @@
+package org.depaul.logic.bricks;
+
+/**
+ * Shared brick instances indexed by id. Bricks are immutable, so every board and
+ * generator can use the same objects. The id of a brick is its colour minus one.
+ */
+public final class Bricks {
+
+    private static final Brick[] BRICKS = {
+            new IBrick(), new JBrick(), new LBrick(), new OBrick(), new SBrick(), new TBrick(), new ZBrick()
+    };
+
+    //No instantiation!
+    private Bricks() {
+
+    }
+
+    public static int count() {
+        return BRICKS.length;
+    }
+
+    public static Brick get(int id) {
+        return BRICKS[id];
+    }
+
+    public static int idOf(Brick brick) {
+        return brick.getShape(0).getColour() - 1;
+    }
+}
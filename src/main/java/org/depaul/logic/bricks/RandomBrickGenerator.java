@@ -4,6 +4,7 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.List;
+import java.util.SplittableRandom;
 import java.util.concurrent.ThreadLocalRandom;
 
 public class RandomBrickGenerator implements BrickGenerator {
@@ -12,7 +13,15 @@ public class RandomBrickGenerator implements BrickGenerator {
 
     private final Deque<Brick> nextBricks = new ArrayDeque<>();
 
+    private final SplittableRandom random;
+
     public RandomBrickGenerator() {
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    // Same seed == same sequence of bricks
+    public RandomBrickGenerator(long seed) {
+        random = new SplittableRandom(seed);
         brickList = new ArrayList<>();
         brickList.add(new IBrick());
         brickList.add(new LBrick());
@@ -21,13 +30,13 @@ public class RandomBrickGenerator implements BrickGenerator {
         brickList.add(new SBrick());
         brickList.add(new TBrick());
         brickList.add(new ZBrick());
-        nextBricks.add(brickList.get(ThreadLocalRandom.current().nextInt(brickList.size())));
+        nextBricks.add(brickList.get(random.nextInt(brickList.size())));
     }
 
     @Override
     public Brick getBrick() {
         if (nextBricks.size() <= 1) {
-            nextBricks.add(brickList.get(ThreadLocalRandom.current().nextInt(brickList.size())));
+            nextBricks.add(brickList.get(random.nextInt(brickList.size())));
         }
         return nextBricks.poll();
     }
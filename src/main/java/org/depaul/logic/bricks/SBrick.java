@@ -2,30 +2,39 @@ package org.depaul.logic.bricks;
 
 import org.depaul.logic.util.Operations;
 
-import java.util.ArrayList;
 import java.util.List;
 
 final class SBrick implements Brick {
 
-    private final List<int[][]> brickMatrixList = new ArrayList<>();
-
-    public SBrick() {
-        brickMatrixList.add(new int[][]{
-                {0, 0, 0, 0},
-                {0, 0, 5, 5},
-                {0, 5, 5, 0},
-                {0, 0, 0, 0}
-        });
-        brickMatrixList.add(new int[][]{
-                {0, 0, 0, 0},
-                {0, 5, 0, 0},
-                {0, 5, 5, 0},
-                {0, 0, 5, 0}
-        });
-    }
+    private static final List<int[][]> BRICK_MATRIX_LIST = List.of(
+            new int[][]{
+                    {0, 0, 0, 0},
+                    {0, 0, 5, 5},
+                    {0, 5, 5, 0},
+                    {0, 0, 0, 0}
+            },
+            new int[][]{
+                    {0, 0, 0, 0},
+                    {0, 5, 0, 0},
+                    {0, 5, 5, 0},
+                    {0, 0, 5, 0}
+            }
+    );
+
+    private static final BrickShape[] SHAPES = BrickShape.rotationsOf(BRICK_MATRIX_LIST);
 
     @Override
     public List<int[][]> getBrickMatrixList() {
-        return Operations.deepCopyList(brickMatrixList);
+        return Operations.deepCopyList(BRICK_MATRIX_LIST);
+    }
+
+    @Override
+    public BrickShape getShape(int rotation) {
+        return SHAPES[rotation];
+    }
+
+    @Override
+    public int getRotationCount() {
+        return SHAPES.length;
     }
-}
\ No newline at end of file
+}
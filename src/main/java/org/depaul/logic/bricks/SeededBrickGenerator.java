@@ -0,0 +1,166 @@
+package org.depaul.logic.bricks;
+
+import org.depaul.logic.util.SplitMix64;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reproducible brick generator. The same seed, mode and preview depth always
+ * produce the same sequence of bricks.
+ * <p>
+ * Upcoming bricks are kept as ids in a primitive ring buffer that is
+ * {@code previewDepth} long, so bots can look further ahead than
+ * {@link #getNextBrick()}.
+ */
+public class SeededBrickGenerator implements BrickGenerator {
+
+    public enum Mode {
+        // every brick drawn independently
+        UNIFORM,
+        // each run of seven bricks is a shuffled permutation of all seven
+        BAG
+    }
+
+    private final Mode mode;
+    private final SplitMix64 random;
+    private final int[] preview;
+    private int head;
+    private final int[] bag = new int[Bricks.count()];
+    private int bagIndex = bag.length;
+
+    public SeededBrickGenerator(long seed, Mode mode, int previewDepth) {
+        this(new SplitMix64(seed), mode, previewDepth);
+    }
+
+    public SeededBrickGenerator(SplitMix64 random, Mode mode, int previewDepth) {
+        if (previewDepth < 1) {
+            throw new IllegalArgumentException("previewDepth must be at least 1");
+        }
+        this.random = random;
+        this.mode = mode;
+        preview = new int[previewDepth];
+        fillPreview();
+    }
+
+    /** Starts over as if freshly built with {@code seed}, same mode and depth. */
+    public void reseed(long seed) {
+        random.setState(seed);
+        bagIndex = bag.length;
+        head = 0;
+        fillPreview();
+    }
+
+    /** PRNG state, preview queue and what is left of the bag, about a dozen bytes. */
+    public void writeState(ByteBuffer out) {
+        out.put((byte) mode.ordinal());
+        out.put((byte) preview.length);
+        out.putLong(random.getState());
+        for (int i = 0; i < preview.length; i++) {
+            out.put((byte) peekId(i));
+        }
+        if (mode == Mode.BAG) {
+            out.put((byte) bagIndex);
+            for (int i = bagIndex; i < bag.length; i++) {
+                out.put((byte) bag[i]);
+            }
+        }
+    }
+
+    /** Restores what {@link #writeState} wrote, mode and preview depth must match. */
+    public void readState(ByteBuffer in) {
+        int savedMode = in.get();
+        int depth = in.get();
+        if (savedMode != mode.ordinal() || depth != preview.length) {
+            throw new IllegalArgumentException("saved generator has mode " + savedMode + " and depth " + depth);
+        }
+        random.setState(in.getLong());
+        head = 0;
+        for (int i = 0; i < preview.length; i++) {
+            preview[i] = checkId(in.get());
+        }
+        if (mode == Mode.BAG) {
+            int index = in.get();
+            if (index < 0 || index > bag.length) {
+                throw new IllegalArgumentException("bag index " + index);
+            }
+            bagIndex = index;
+            for (int i = bagIndex; i < bag.length; i++) {
+                bag[i] = checkId(in.get());
+            }
+        }
+    }
+
+    private static int checkId(int id) {
+        if (id < 0 || id >= Bricks.count()) {
+            throw new IllegalArgumentException("unknown brick " + id);
+        }
+        return id;
+    }
+
+    private void fillPreview() {
+        for (int i = 0; i < preview.length; i++) {
+            preview[i] = draw();
+        }
+    }
+
+    /**
+     * Generator for another thread, seeded from this one's next value with
+     * {@link SplitMix64#split()}. Both draw from the same fixed-gamma sequence,
+     * just from different points, so this is not an independent stream for
+     * parallel simulations: two splits can run into each other's draws, and
+     * nothing beyond that offset keeps them apart.
+     */
+    public SeededBrickGenerator split() {
+        return new SeededBrickGenerator(random.split(), mode, preview.length);
+    }
+
+    @Override
+    public Brick getBrick() {
+        int id = preview[head];
+        preview[head] = draw();
+        head = (head + 1) % preview.length;
+        return Bricks.get(id);
+    }
+
+    @Override
+    public Brick getNextBrick() {
+        return Bricks.get(preview[head]);
+    }
+
+    public int getPreviewDepth() {
+        return preview.length;
+    }
+
+    /** Id of the brick {@code depth} places ahead; 0 is the next brick. */
+    public int peekId(int depth) {
+        return preview[(head + depth) % preview.length];
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    private int draw() {
+        if (mode == Mode.UNIFORM) {
+            return random.nextInt(Bricks.count());
+        }
+        if (bagIndex == bag.length) {
+            refillBag();
+        }
+        return bag[bagIndex++];
+    }
+
+    private void refillBag() {
+        for (int i = 0; i < bag.length; i++) {
+            bag[i] = i;
+        }
+        // Fisher-Yates
+        for (int i = bag.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = bag[i];
+            bag[i] = bag[j];
+            bag[j] = tmp;
+        }
+        bagIndex = 0;
+    }
+}
@@ -0,0 +1,11 @@
+package org.depaul.logic.data;
+
+/**
+ * Everything the view needs to draw one frame, published by the logic thread.
+ * {@code boardMatrix} is a private copy taken when the background last
+ * changed and is never written afterwards, so frames can be read from any
+ * thread. {@code boardVersion} only moves when that copy is replaced.
+ * {@code score} is the game's total when the frame was taken.
+ */
+public record Frame(long sequence, long boardVersion, int[][] boardMatrix, ViewData brick, long score) {
+}
@@ -1,21 +1,42 @@
 package org.depaul.logic.data;
 
-import javafx.beans.property.IntegerProperty;
-import javafx.beans.property.SimpleIntegerProperty;
-
+/**
+ * Running total of one game: points, lines and the level they give. Plain
+ * primitives, written by the thread that steps the game; the GUI gets the
+ * value through {@link Frame#score()}.
+ */
 public final class Score {
 
-    private final IntegerProperty score = new SimpleIntegerProperty(0);
+    public static final int LINES_PER_LEVEL = 10;
+
+    private long value;
+    private int lines;
+
+    public void add(long points, int linesCleared) {
+        value += points;
+        lines += linesCleared;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public int getLines() {
+        return lines;
+    }
 
-    public IntegerProperty scoreProperty() {
-        return score;
+    // level 1 until the first 10 lines
+    public int getLevel() {
+        return lines / LINES_PER_LEVEL + 1;
     }
 
-    public void add(int i){
-        score.setValue(score.getValue() + i);
+    public void set(long value, int lines) {
+        this.value = value;
+        this.lines = lines;
     }
 
     public void reset() {
-        score.setValue(0);
+        value = 0;
+        lines = 0;
     }
 }
@@ -1,11 +1,25 @@
 package org.depaul.logic.data;
 
-import org.depaul.logic.util.Operations;
+import org.depaul.logic.bricks.BrickShape;
 
-public record ViewData(int[][] brickData, int xPosition, int yPosition, int[][] nextBrickData) {
+/**
+ * Immutable snapshot of the falling brick, its position and the next brick.
+ * The shapes are the shared, read-only brick tables, so building or reading a
+ * snapshot never copies a matrix; use the indexed accessors in hot paths.
+ */
+public record ViewData(BrickShape brickShape, int xPosition, int yPosition, BrickShape nextBrickShape) {
 
+    public int getBrickCell(int row, int col) {
+        return brickShape.getCell(row, col);
+    }
+
+    public int getNextBrickCell(int row, int col) {
+        return nextBrickShape.getCell(row, col);
+    }
+
+    // Copies, kept for callers that need a matrix of their own
     public int[][] getBrickData() {
-        return Operations.copyMatrix(brickData);
+        return brickShape.toMatrix();
     }
 
     public int getxPosition() {
@@ -16,7 +30,8 @@ public record ViewData(int[][] brickData, int xPosition, int yPosition, int[][]
         return yPosition;
     }
 
+    // Copies, kept for callers that need a matrix of their own
     public int[][] getNextBrickData() {
-        return Operations.copyMatrix(nextBrickData);
+        return nextBrickShape.toMatrix();
     }
 }
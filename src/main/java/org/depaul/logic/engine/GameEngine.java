@@ -0,0 +1,202 @@
+package org.depaul.logic.engine;
+
+import org.depaul.logic.board.Board;
+import org.depaul.logic.data.Score;
+import org.depaul.logic.events.EventSource;
+import org.depaul.logic.events.EventType;
+import org.depaul.logic.events.MoveEvent;
+import org.depaul.logic.events.ScoreManager;
+import org.depaul.logic.metrics.BrickLockEvent;
+import org.depaul.logic.metrics.GameOverEvent;
+import org.depaul.logic.metrics.Metrics;
+import org.depaul.logic.util.Varint;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Headless game loop: merge, clear and score a {@link Board} without any
+ * JavaFX dependency. {@link org.depaul.logic.events.GameController} wraps it for
+ * the GUI, simulations and bots drive it directly.
+ */
+public class GameEngine {
+
+    private static final MoveEvent DOWN = new MoveEvent(EventType.DOWN, EventSource.THREAD);
+
+    private final Board board;
+    private final ScoreManager scoreManager = new ScoreManager();
+    private final List<GameEventListener> listeners = new ArrayList<>();
+
+    // the board's, so its owner sees the same total
+    private final Score score;
+    private int piecesPlaced;
+    private int lastLinesCleared;
+    private int lastPoints;
+    private boolean gameOver;
+
+    public GameEngine(Board board) {
+        this.board = board;
+        score = board.getScore();
+        board.createNewBrick();
+    }
+
+    /**
+     * Applies one move. Returns true when the move locked the brick, in which
+     * case lines were cleared, points scored and the next brick spawned.
+     * Events after game over are ignored.
+     */
+    public boolean step(MoveEvent event) {
+        if (gameOver) {
+            return false;
+        }
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onMoveApplied(event);
+        }
+        if (moveBrick(event)) {
+            return false;
+        }
+        lockBrick();
+        return true;
+    }
+
+    /**
+     * Moves the brick one row down without locking it. Returns false when it
+     * is resting on the stack or the floor, or the game is over.
+     */
+    public boolean fall() {
+        if (gameOver || !moveBrick(DOWN)) {
+            return false;
+        }
+        // reported as the DOWN it is, a fall that did not move changes nothing
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onMoveApplied(DOWN);
+        }
+        return true;
+    }
+
+    private boolean moveBrick(MoveEvent event) {
+        if (!Metrics.ENABLED) {
+            return board.moveBrick(event);
+        }
+        long start = System.nanoTime();
+        boolean moved = board.moveBrick(event);
+        Metrics.MOVE_BRICK.recordSince(start);
+        Metrics.PIPELINE.eventApplied();
+        return moved;
+    }
+
+    private void lockBrick() {
+        BrickLockEvent lock = new BrickLockEvent();
+        lock.begin();
+        board.mergeBrickToBackground();
+        scoreManager.addBrickScore(4);
+
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        lastLinesCleared = board.clearLines();
+        if (Metrics.ENABLED) {
+            Metrics.CLEAR_LINES.recordSince(start);
+            Metrics.PIPELINE.pieceLocked(lastLinesCleared);
+        }
+        scoreManager.addLinesCleared(lastLinesCleared);
+
+        lastPoints = scoreManager.scorePoints();
+        score.add(lastPoints, lastLinesCleared);
+        piecesPlaced++;
+        if (lock.shouldCommit()) {
+            // the merged brick is still the current one until the next spawns
+            lock.piece = BrickLockEvent.pieceName(board.getViewData().brickShape().getColour() - 1);
+            lock.linesCleared = lastLinesCleared;
+            lock.points = lastPoints;
+            lock.score = score.getValue();
+            lock.commit();
+        }
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onBrickLocked(lastLinesCleared, lastPoints);
+        }
+
+        if (board.createNewBrick()) {
+            gameOver = true;
+            GameOverEvent over = new GameOverEvent();
+            if (over.isEnabled()) {
+                over.score = score.getValue();
+                over.piecesPlaced = piecesPlaced;
+                over.linesCleared = scoreManager.getLinesCleared();
+                over.commit();
+            }
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).onGameOver();
+            }
+        }
+    }
+
+    public void newGame() {
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onNewGame();
+        }
+        board.newGame();
+        scoreManager.reset();
+        score.reset();
+        piecesPlaced = 0;
+        lastLinesCleared = 0;
+        lastPoints = 0;
+        gameOver = false;
+    }
+
+    // counters of the engine and its ScoreManager, see GameStateCodec
+    void writeState(ByteBuffer out) {
+        Varint.putLong(out, score.getValue());
+        Varint.putLong(out, piecesPlaced);
+        Varint.putLong(out, lastLinesCleared);
+        Varint.putLong(out, lastPoints);
+        out.put((byte) (gameOver ? 1 : 0));
+        Varint.putLong(out, scoreManager.getLinesCleared());
+        Varint.putLong(out, scoreManager.getPointsToAdd());
+    }
+
+    void readState(ByteBuffer in) {
+        long total = Varint.getLong(in);
+        piecesPlaced = Varint.getInt(in);
+        lastLinesCleared = Varint.getInt(in);
+        lastPoints = Varint.getInt(in);
+        gameOver = in.get() != 0;
+        scoreManager.restore(Varint.getInt(in), Varint.getLong(in));
+        score.set(total, scoreManager.getLinesCleared());
+    }
+
+    public void addListener(GameEventListener listener) {
+        listeners.add(listener);
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public long getScore() {
+        return score.getValue();
+    }
+
+    public int getLinesCleared() {
+        return scoreManager.getLinesCleared();
+    }
+
+    public int getLevel() {
+        return score.getLevel();
+    }
+
+    public int getPiecesPlaced() {
+        return piecesPlaced;
+    }
+
+    public int getLastLinesCleared() {
+        return lastLinesCleared;
+    }
+
+    public int getLastPoints() {
+        return lastPoints;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+}
@@ -0,0 +1,25 @@
+package org.depaul.logic.engine;
+
+import org.depaul.logic.events.MoveEvent;
+
+/**
+ * Callbacks fired by {@link GameEngine} while it steps a game. All methods run on
+ * the thread that called {@link GameEngine#step}, default to doing nothing and
+ * only receive primitives or immutable values.
+ */
+public interface GameEventListener {
+
+    default void onBrickLocked(int linesCleared, int points) {
+    }
+
+    default void onGameOver() {
+    }
+
+    // fired before the board is reset, the old game's state is still readable
+    default void onNewGame() {
+    }
+
+    // every move that reached the board, including gravity falls, in order
+    default void onMoveApplied(MoveEvent event) {
+    }
+}
@@ -0,0 +1,226 @@
+package org.depaul.logic.engine;
+
+import org.depaul.logic.board.Board;
+import org.depaul.logic.data.Frame;
+import org.depaul.logic.data.ViewData;
+import org.depaul.logic.events.EventType;
+import org.depaul.logic.events.MoveEvent;
+import org.depaul.logic.sim.MovePolicy;
+import org.depaul.logic.spectator.SpectatorFeed;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a {@link GameEngine} on a thread of its own. Any thread may
+ * {@link #submit} moves, they go through a lock-free queue and are applied in
+ * order. After every batch the loop publishes an immutable {@link Frame} that
+ * readers poll with {@link #getFrame()}, so a slow reader only ever skips
+ * frames and never holds up the game.
+ * <p>
+ * With a {@link GravityScheduler} the loop also runs gravity, sleeping until
+ * the next fall or lock is due; without one bricks only move when told to.
+ * <p>
+ * Engine listeners are called on the logic thread.
+ */
+public class GameLoop implements Runnable {
+
+    private final GameEngine engine;
+    private final GravityScheduler gravity;
+    private final Queue<MoveEvent> inputs = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<Frame> frame = new AtomicReference<>();
+    private final AtomicBoolean newGameRequested = new AtomicBoolean();
+
+    private volatile Thread thread;
+    private volatile boolean running;
+    private volatile boolean paused;
+    private volatile boolean softDrop;
+    private volatile MovePolicy autoplay;
+    private volatile long autoplayNanos;
+    private SpectatorFeed spectators;
+
+    // only touched by the logic thread
+    private long sequence;
+    private long boardVersion;
+    private int[][] boardCopy;
+
+    public GameLoop(GameEngine engine) {
+        this(engine, null);
+    }
+
+    public GameLoop(GameEngine engine, GravityScheduler gravity) {
+        this.engine = engine;
+        this.gravity = gravity;
+        publish(true);
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this, "game-logic");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() throws InterruptedException {
+        Thread t = thread;
+        if (t == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(t);
+        t.join();
+        thread = null;
+    }
+
+    public void submit(MoveEvent event) {
+        inputs.offer(event);
+        wake();
+    }
+
+    /** Starts a new game on the logic thread, moves still queued are applied to it. */
+    public void requestNewGame() {
+        newGameRequested.set(true);
+        wake();
+    }
+
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+        wake();
+    }
+
+    public void setSoftDrop(boolean softDrop) {
+        this.softDrop = softDrop;
+        wake();
+    }
+
+    /**
+     * Lets {@code policy} play, one move every {@code moveNanos}, on the
+     * logic thread. Player moves still go through. Null stops it.
+     */
+    public void setAutoplay(MovePolicy policy, long moveNanos) {
+        autoplayNanos = moveNanos;
+        autoplay = policy;
+        wake();
+    }
+
+    /**
+     * Commits {@code feed} after every batch, on the logic thread. Set it
+     * before {@link #start()}, the feed reads the engine when it is created.
+     */
+    public void setSpectatorFeed(SpectatorFeed feed) {
+        spectators = feed;
+    }
+
+    public Frame getFrame() {
+        return frame.get();
+    }
+
+    public GameEngine getEngine() {
+        return engine;
+    }
+
+    private void wake() {
+        Thread t = thread;
+        if (t != null) {
+            // a permit handed out before the loop parks is not lost
+            LockSupport.unpark(t);
+        }
+    }
+
+    @Override
+    public void run() {
+        boolean wasPaused = paused;
+        long nextAutoMove = System.nanoTime();
+        if (gravity != null) {
+            gravity.start(System.nanoTime());
+        }
+        while (running) {
+            long now = System.nanoTime();
+            int pieces = engine.getPiecesPlaced();
+            boolean newGame = newGameRequested.getAndSet(false);
+            if (newGame) {
+                engine.newGame();
+                if (gravity != null) {
+                    gravity.start(now);
+                }
+            }
+            MoveEvent event;
+            while ((event = inputs.poll()) != null) {
+                apply(event, now);
+            }
+
+            long wakeAt = Long.MAX_VALUE;
+            boolean isPaused = paused;
+            MovePolicy policy = autoplay;
+            if (policy != null && !isPaused && !engine.isGameOver()) {
+                if (now - nextAutoMove >= 0) {
+                    apply(policy.nextMove(engine), now);
+                    nextAutoMove = now + autoplayNanos;
+                }
+                wakeAt = nextAutoMove;
+            }
+            if (gravity != null) {
+                if (wasPaused && !isPaused) {
+                    gravity.resume(now);
+                }
+                gravity.setSoftDrop(softDrop, now);
+                if (!isPaused) {
+                    long fall = gravity.update(now);
+                    wakeAt = wakeAt == Long.MAX_VALUE ? fall : Math.min(wakeAt, fall);
+                }
+            }
+            wasPaused = isPaused;
+
+            boolean boardChanged = newGame || engine.getPiecesPlaced() != pieces;
+            if (boardChanged || !engine.getBoard().getViewData().equals(frame.get().brick())) {
+                publish(boardChanged);
+            }
+            if (spectators != null) {
+                spectators.commit();
+            }
+
+            if (wakeAt == Long.MAX_VALUE) {
+                LockSupport.park(this);
+            } else {
+                long wait = wakeAt - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(this, wait);
+                }
+            }
+        }
+    }
+
+    private void apply(MoveEvent event, long now) {
+        if (gravity == null) {
+            engine.step(event);
+            return;
+        }
+        ViewData before = engine.getBoard().getViewData();
+        engine.step(event);
+        if (event.eventType() == EventType.SPACE) {
+            gravity.onHardDrop(now);
+        } else if (!engine.getBoard().getViewData().equals(before)) {
+            gravity.onPlayerMove(now);
+        }
+    }
+
+    private void publish(boolean boardChanged) {
+        Board board = engine.getBoard();
+        if (boardChanged || boardCopy == null) {
+            int[][] matrix = board.getBoardMatrix();
+            int[][] copy = new int[matrix.length][];
+            for (int row = 0; row < matrix.length; row++) {
+                copy[row] = matrix[row].clone();
+            }
+            boardCopy = copy;
+            boardVersion++;
+        }
+        frame.set(new Frame(++sequence, boardVersion, boardCopy, board.getViewData(), engine.getScore()));
+    }
+}
@@ -0,0 +1,198 @@
+package org.depaul.logic.engine;
+
+import org.depaul.logic.events.EventSource;
+import org.depaul.logic.events.EventType;
+import org.depaul.logic.events.MoveEvent;
+import org.depaul.logic.metrics.GravityTickEvent;
+
+import java.util.function.IntToLongFunction;
+
+/**
+ * Gravity, soft drop and lock delay for a {@link GameEngine}, driven by
+ * {@link System#nanoTime()} timestamps instead of a UI timer. Falls are due on
+ * a fixed grid of deadlines, so late wake-ups catch up rather than slowly
+ * drifting; at 20G a brick still falls twenty rows per frame even if the
+ * loop only wakes up once a frame.
+ * <p>
+ * A brick that cannot fall any more locks once it has been resting for the
+ * lock delay. Moving or rotating it restarts the delay, at most
+ * {@link #MAX_LOCK_RESETS} times per brick. Not thread safe, owned by the
+ * logic thread.
+ */
+public class GravityScheduler {
+
+    // one frame at 60 Hz, the unit gravity curves are usually quoted in
+    public static final long FRAME_NANOS = 1_000_000_000L / 60;
+    // 20G: twenty rows per frame
+    public static final long MIN_FALL_NANOS = FRAME_NANOS / 20;
+    public static final long DEFAULT_LOCK_DELAY_NANOS = 500_000_000L;
+    public static final int DEFAULT_SOFT_DROP_FACTOR = 20;
+    public static final int MAX_LOCK_RESETS = 15;
+
+    // after a stall longer than this the schedule restarts instead of catching up
+    private static final long MAX_LAG_NANOS = 250_000_000L;
+    private static final MoveEvent DOWN = new MoveEvent(EventType.DOWN, EventSource.THREAD);
+
+    private final GameEngine engine;
+    private final IntToLongFunction levelCurve;
+    private final long lockDelayNanos;
+    private final int softDropFactor;
+
+    private boolean softDrop;
+    private long nextFall;
+    private boolean grounded;
+    private long lockDeadline;
+    private int lockResets;
+    private int seenPieces;
+
+    public GravityScheduler(GameEngine engine) {
+        this(engine, GravityScheduler::guidelineFallNanos, DEFAULT_LOCK_DELAY_NANOS, DEFAULT_SOFT_DROP_FACTOR);
+    }
+
+    /**
+     * @param levelCurve nanoseconds per row for a level, level 1 being the first
+     * @param softDropFactor how many times faster than gravity soft drop falls
+     */
+    public GravityScheduler(GameEngine engine, IntToLongFunction levelCurve, long lockDelayNanos, int softDropFactor) {
+        if (lockDelayNanos < 0 || softDropFactor < 1) {
+            throw new IllegalArgumentException("lock delay must be >= 0 and soft drop factor >= 1");
+        }
+        this.engine = engine;
+        this.levelCurve = levelCurve;
+        this.lockDelayNanos = lockDelayNanos;
+        this.softDropFactor = softDropFactor;
+    }
+
+    /** (0.8 - (level - 1) * 0.007) ^ (level - 1) seconds per row, 20G from level 20 on. */
+    public static long guidelineFallNanos(int level) {
+        int n = Math.min(Math.max(level, 1), 20) - 1;
+        double seconds = Math.pow(0.8 - n * 0.007, n);
+        return Math.max(MIN_FALL_NANOS, (long) (seconds * 1e9));
+    }
+
+    public int getLevel() {
+        return engine.getLevel();
+    }
+
+    public long getFallNanos() {
+        long gravity = Math.max(MIN_FALL_NANOS, levelCurve.applyAsLong(getLevel()));
+        return softDrop ? Math.max(MIN_FALL_NANOS, gravity / softDropFactor) : gravity;
+    }
+
+    /** Restarts the schedule for the brick currently on the board. */
+    public void start(long now) {
+        softDrop = false;
+        newPiece(now);
+    }
+
+    /** Picks up after a pause without counting the paused time as late. */
+    public void resume(long now) {
+        nextFall = now + getFallNanos();
+        if (grounded) {
+            lockDeadline = now + lockDelayNanos;
+        }
+    }
+
+    public void setSoftDrop(boolean on, long now) {
+        if (softDrop == on) {
+            return;
+        }
+        softDrop = on;
+        // pressing soft drop moves the brick straight away
+        nextFall = on ? now : now + getFallNanos();
+    }
+
+    public boolean isSoftDrop() {
+        return softDrop;
+    }
+
+    /** Call after a player move or rotation that actually changed the brick. */
+    public void onPlayerMove(long now) {
+        syncPiece(now);
+        if (grounded && lockResets < MAX_LOCK_RESETS) {
+            lockResets++;
+            lockDeadline = now + lockDelayNanos;
+        }
+    }
+
+    /** A hard-dropped brick locks on the next update, without any delay. */
+    public void onHardDrop(long now) {
+        syncPiece(now);
+        grounded = true;
+        lockDeadline = now;
+        lockResets = MAX_LOCK_RESETS;
+    }
+
+    /**
+     * Applies every fall and lock due at {@code now} and returns when the next
+     * one is due, {@link Long#MAX_VALUE} once the game is over.
+     */
+    public long update(long now) {
+        if (engine.isGameOver()) {
+            return Long.MAX_VALUE;
+        }
+        syncPiece(now);
+        long late = now - nextFall;
+        if (late >= 0) {
+            GravityTickEvent tick = new GravityTickEvent();
+            tick.begin();
+            long interval = getFallNanos();
+            long due;
+            if (grounded || late > MAX_LAG_NANOS) {
+                // resting or stalled: one row, then a fresh schedule from here
+                due = 1;
+                nextFall = now + interval;
+            } else {
+                due = late / interval + 1;
+                nextFall += due * interval;
+            }
+            fall(due, now);
+            if (tick.shouldCommit()) {
+                tick.level = getLevel();
+                tick.rows = due;
+                tick.softDrop = softDrop;
+                tick.late = late;
+                tick.commit();
+            }
+        }
+        if (grounded && now - lockDeadline >= 0) {
+            // step only locks if the brick still cannot move down
+            if (engine.step(DOWN)) {
+                newPiece(now);
+            } else {
+                grounded = false;
+            }
+        }
+        if (engine.isGameOver()) {
+            return Long.MAX_VALUE;
+        }
+        return grounded ? lockDeadline : nextFall;
+    }
+
+    private void fall(long rows, long now) {
+        for (long i = 0; i < rows; i++) {
+            if (!engine.fall()) {
+                if (!grounded) {
+                    grounded = true;
+                    lockDeadline = now + lockDelayNanos;
+                }
+                return;
+            }
+            grounded = false;
+        }
+    }
+
+    // a lock can also come from a player's DOWN, reset for whatever spawned
+    private void syncPiece(long now) {
+        if (engine.getPiecesPlaced() != seenPieces) {
+            newPiece(now);
+        }
+    }
+
+    private void newPiece(long now) {
+        seenPieces = engine.getPiecesPlaced();
+        grounded = false;
+        lockResets = 0;
+        nextFall = now + getFallNanos();
+    }
+}
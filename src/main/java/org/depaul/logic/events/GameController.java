@@ -1,71 +1,176 @@
 package org.depaul.logic.events;
 
+import javafx.application.Platform;
 import org.depaul.gui.GuiController;
-import org.depaul.logic.board.Board;
 import org.depaul.logic.board.SimpleBoard;
-import org.depaul.logic.data.ViewData;
+import org.depaul.logic.bot.AutoPlayer;
+import org.depaul.logic.bricks.SeededBrickGenerator;
+import org.depaul.logic.data.Frame;
+import org.depaul.logic.engine.GameEngine;
+import org.depaul.logic.engine.GameEventListener;
+import org.depaul.logic.engine.GameLoop;
+import org.depaul.logic.engine.GravityScheduler;
+import org.depaul.logic.metrics.Metrics;
+import org.depaul.logic.replay.Replay;
+import org.depaul.logic.replay.ReplayArchiveWriter;
+import org.depaul.logic.replay.ReplayPlayer;
+import org.depaul.logic.replay.ReplayRecorder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.concurrent.ThreadLocalRandom;
 
-public class GameController implements InputEventListener {
+public class GameController implements InputEventListener, GameEventListener {
 
-    private final Board board = new SimpleBoard(25, 10); // WHY IS THE HEIGHT OF THE BOARD CALLED "width" ???
+    private static final int ROWS = 25; // WHY IS THE HEIGHT OF THE BOARD CALLED "width" ???
+    private static final int COLUMNS = 10;
+    private static final long AUTOPLAY_MOVE_NANOS = 40_000_000L;
 
     private final GuiController viewGuiController;
-    private final ScoreManager scoreManager;
+    private final GameEngine engine;
+    private final GameLoop loop;
+    // set when watching a recorded game instead of playing
+    private final Replay replay;
+    // null unless recording
+    private ReplayRecorder recorder;
+    private ReplayArchiveWriter archive;
 
     public GameController(GuiController c) {
         viewGuiController = c;
-        board.createNewBrick();
+        replay = loadReplay(System.getProperty("tetris.replay.play"));
+        if (replay != null) {
+            // the recording already holds every gravity step
+            engine = replay.newEngine();
+            loop = new GameLoop(engine);
+        } else {
+            long seed = ThreadLocalRandom.current().nextLong();
+            SeededBrickGenerator generator = new SeededBrickGenerator(seed, SeededBrickGenerator.Mode.UNIFORM, 1);
+            engine = new GameEngine(new SimpleBoard(ROWS, COLUMNS, generator));
+            loop = new GameLoop(engine, new GravityScheduler(engine));
+            if (Boolean.getBoolean("tetris.autoplay")) {
+                loop.setAutoplay(new AutoPlayer(ROWS, COLUMNS), AUTOPLAY_MOVE_NANOS);
+            }
+            String replayDir = System.getProperty("tetris.replay.dir");
+            String archiveDir = System.getProperty("tetris.replay.archive");
+            if (archiveDir != null) {
+                archive = openArchive(archiveDir);
+                recorder = new ReplayRecorder(archive, engine, generator, seed);
+            } else if (replayDir != null) {
+                recorder = new ReplayRecorder(Path.of(replayDir), engine, generator, seed);
+            }
+            if (recorder != null) {
+                engine.addListener(recorder);
+            }
+        }
+        engine.addListener(this);
         viewGuiController.setEventListener(this);
-        viewGuiController.initGameView(board.getBoardMatrix(), board.getViewData());
-        viewGuiController.bindScore(board.getScore().scoreProperty());
-        scoreManager = new ScoreManager(c, board.getScore());
+        // the renderers keep the matrix they are given, hand them the frame's copy
+        Frame frame = loop.getFrame();
+        viewGuiController.initGameView(frame.boardMatrix(), frame.brick());
+        viewGuiController.bindScore();
+        loop.start();
+        if (replay != null) {
+            Thread player = new Thread(this::playReplay, "replay");
+            player.setDaemon(true);
+            player.start();
+        }
     }
 
-    @Override
-    public ViewData onMoveEvent(MoveEvent event) {
-        boolean movable = board.moveBrick(event);
-        if (!movable) {
-            
-            board.mergeBrickToBackground();
-            scoreManager.addBrickScore(4);
-
-            int num_cleared_lines = board.clearLines();
-            scoreManager.addLinesCleared(num_cleared_lines);
-            
-            scoreManager.scorePoints();
-
-            if (board.createNewBrick()) {
-                viewGuiController.gameOver();
+    private static Replay loadReplay(String file) {
+        if (file == null) {
+            return null;
+        }
+        try {
+            Replay replay = Replay.read(Path.of(file));
+            if (replay.getRows() != ROWS || replay.getColumns() != COLUMNS) {
+                throw new IllegalArgumentException("replay board is " + replay.getRows() + "x" + replay.getColumns());
             }
-            viewGuiController.refreshGameBackground(board.getBoardMatrix());
-           // viewGuiController.refreshGameBackground(board.getBoardMatrix(), board.getViewData()); samira
-        } else {
-            if (event.getEventSource() == EventSource.USER) {
-                // board.getScore().add(ThreadLocalRandom.current().nextInt(100)); TODO: keep this commented out
+            return replay;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ReplayArchiveWriter openArchive(String directory) {
+        try {
+            return new ReplayArchiveWriter(Path.of(directory));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stops the logic thread, then gives the game being recorded its trailer
+     * and closes the replay files, so a window closed mid-game still leaves a
+     * readable replay.
+     */
+    public void close() throws InterruptedException {
+        loop.stop();
+        if (recorder != null) {
+            recorder.close();
+        }
+        if (archive != null) {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                System.err.println("replay: " + e);
             }
         }
+    }
 
-        return board.getViewData();
+    private void playReplay() {
+        try {
+            ReplayPlayer.playRealTime(replay, loop);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     @Override
-    public ViewData onRotateEvent(MoveEvent event) {
-        boolean movable = board.rotateBrick();
-        if (!movable) {
-//            viewGuiController.updateLevel(board.getScore().getLevel()); TODO: update level and scores
-            viewGuiController.refreshGameBackground(board.getBoardMatrix());
+    public void onMoveEvent(MoveEvent event) {
+        if (replay == null) {
+            long start = Metrics.ENABLED ? System.nanoTime() : 0;
+            loop.submit(event);
+            if (Metrics.ENABLED) {
+                Metrics.SUBMIT_MOVE.recordSince(start);
+            }
         }
-        return board.getViewData();
+    }
+
+    // engine callbacks run on the logic thread, the score reaches FX with the frames
+    @Override
+    public void onGameOver() {
+        // called from lockBrick after the last points are added
+        long finalScore = engine.getScore();
+        Platform.runLater(() -> viewGuiController.gameOver(finalScore));
+    }
+
+    @Override
+    public void onRotateEvent(MoveEvent event) {
+        onMoveEvent(new MoveEvent(EventType.Z, event.eventSource()));
     }
 
     @Override
     public void createNewGame() {
-        board.getScore().reset();
-        board.newGame();
-        scoreManager.reset();
-       // viewGuiController.refreshGameBackground(board.getBoardMatrix(), board.getViewData()); Samira
-        viewGuiController.refreshGameBackground(board.getBoardMatrix());
+        // a replay only plays once
+        if (replay == null) {
+            loop.requestNewGame();
+        }
+    }
+
+    @Override
+    public void setSoftDrop(boolean softDrop) {
+        loop.setSoftDrop(softDrop);
+    }
+
+    @Override
+    public void setPaused(boolean paused) {
+        loop.setPaused(paused);
+    }
+
+    @Override
+    public Frame getFrame() {
+        return loop.getFrame();
     }
 }
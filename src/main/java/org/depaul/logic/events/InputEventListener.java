@@ -1,12 +1,22 @@
 package org.depaul.logic.events;
 
-import org.depaul.logic.data.ViewData;
+import org.depaul.logic.data.Frame;
 
+// Calls only queue the request, the game applies them on its own thread and
+// the result shows up in a later frame
 public interface InputEventListener {
 
-    ViewData onMoveEvent(MoveEvent event);
+    void onMoveEvent(MoveEvent event);
 
-    ViewData onRotateEvent(MoveEvent event);
+    void onRotateEvent(MoveEvent event);
 
     void createNewGame();
+
+    // gravity keeps running at the soft drop rate while this is on
+    void setSoftDrop(boolean softDrop);
+
+    void setPaused(boolean paused);
+
+    // latest frame, safe to call from any thread
+    Frame getFrame();
 }
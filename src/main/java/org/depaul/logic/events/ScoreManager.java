@@ -1,40 +1,17 @@
 package org.depaul.logic.events;
 
-import org.depaul.gui.GuiController;
-import org.depaul.logic.data.Score;
-
 public class ScoreManager {
 
-    private final GuiController viewGuiController;
-    private final Score score;
+    private static final int LINES_TO_BONUS_POINTS = 10;
+    private static final int BONUS_POINTS = 40;
 
     private int linesCleared;
-    private int nLinesToBonusPoints;
-    private int nBonusPoints;
-    private int nCurrentBonusPoints;
 
-    private int pointsToAdd = 0;
-
-    public ScoreManager(GuiController c, Score s) {
-        viewGuiController = c;
-        score = s;
-        linesCleared = 0;
-        nLinesToBonusPoints = 10;
-        nBonusPoints = 40;
-        //Set to 0 because on first line cleared
-        //it will increase to nBonusPOints
-        nCurrentBonusPoints = 0;
-    }
+    private long pointsToAdd = 0;
 
     public void addBrickScore(int n){
-        //Prevent scores of 0 from showing to keep
-        //logic in other classes simple
-        if(n == 0) return;
-
         //Each brick worth 10 points for a baseline
-        int points = n * 10;
-
-        pointsToAdd += points;
+        pointsToAdd += n * 10L;
     }
 
     public void addLinesCleared(int n){
@@ -42,22 +19,50 @@ public class ScoreManager {
         //logic in other classes simple
         if(n == 0) return;
 
-        int points = 0;
-        for(int i = 0; i < n; i++, pointsToAdd += nCurrentBonusPoints, linesCleared++){
-            //Every nLinesToBonusPoints number of lines cleared increase
-            //point value of clearing a line by nBonusPoints
-            if(linesCleared % nLinesToBonusPoints == 0) nCurrentBonusPoints += nBonusPoints;
-        }
+        pointsToAdd += BONUS_POINTS * (bonusSteps(linesCleared + (long) n) - bonusSteps(linesCleared));
+        linesCleared += n;
+    }
+
+    //Every LINES_TO_BONUS_POINTS lines cleared the point value of a line goes
+    //up by BONUS_POINTS, starting at BONUS_POINTS for the first line. Returns
+    //the sum of those steps over the first `lines` lines, so the bonus for any
+    //batch of lines is a difference of two calls instead of a loop per line.
+    static long bonusSteps(long lines) {
+        long tens = lines / LINES_TO_BONUS_POINTS;
+        long rest = lines % LINES_TO_BONUS_POINTS;
+        return LINES_TO_BONUS_POINTS * tens * (tens + 1) / 2 + rest * (tens + 1);
     }
 
-    public void scorePoints(){
-        viewGuiController.ShowScore(pointsToAdd);
-        score.add(pointsToAdd);
+    //Returns the points collected since the last call, the caller decides
+    //where they are shown
+    public int scorePoints(){
+        int points = (int) Math.min(pointsToAdd, Integer.MAX_VALUE);
         pointsToAdd = 0;
+        return points;
+    }
+
+    public int getLinesCleared() {
+        return linesCleared;
+    }
+
+    //What a line is worth right now, 0 before the first one
+    public int getCurrentBonusPoints() {
+        return (int) Math.min(BONUS_POINTS * ((linesCleared + LINES_TO_BONUS_POINTS - 1L) / LINES_TO_BONUS_POINTS), Integer.MAX_VALUE);
+    }
+
+    public long getPointsToAdd() {
+        return pointsToAdd;
+    }
+
+    //Puts the counters back to where a saved game left them, the bonus
+    //follows from the lines
+    public void restore(int linesCleared, long pointsToAdd) {
+        this.linesCleared = linesCleared;
+        this.pointsToAdd = pointsToAdd;
     }
 
     public void reset(){
         linesCleared = 0;
-        nCurrentBonusPoints = 0;
+        pointsToAdd = 0;
     }
 }
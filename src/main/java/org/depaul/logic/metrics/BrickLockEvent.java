@@ -0,0 +1,41 @@
+package org.depaul.logic.metrics;
+
+import org.depaul.logic.bricks.Bricks;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A brick merged into the stack, timed over the merge, line clear and scoring. */
+@Name("org.depaul.tetris.BrickLock")
+@Label("Brick Lock")
+@Category("Tetris")
+@StackTrace(false)
+public final class BrickLockEvent extends Event {
+
+    private static final String[] PIECES = new String[Bricks.count()];
+
+    static {
+        for (int id = 0; id < PIECES.length; id++) {
+            PIECES[id] = Bricks.get(id).getClass().getSimpleName().replace("Brick", "");
+        }
+    }
+
+    @Label("Piece")
+    public String piece;
+
+    @Label("Lines Cleared")
+    public int linesCleared;
+
+    @Label("Points")
+    public int points;
+
+    @Label("Score")
+    public long score;
+
+    /** I, J, L, O, S, T or Z for a {@link Bricks} id. */
+    public static String pieceName(int brickId) {
+        return PIECES[brickId];
+    }
+}
@@ -0,0 +1,23 @@
+package org.depaul.logic.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.depaul.tetris.GameOver")
+@Label("Game Over")
+@Category("Tetris")
+@StackTrace(false)
+public final class GameOverEvent extends Event {
+
+    @Label("Score")
+    public long score;
+
+    @Label("Pieces Placed")
+    public int piecesPlaced;
+
+    @Label("Lines Cleared")
+    public int linesCleared;
+}
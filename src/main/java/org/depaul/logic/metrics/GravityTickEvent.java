@@ -0,0 +1,32 @@
+package org.depaul.logic.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/** One gravity step of a {@link org.depaul.logic.engine.GravityScheduler}, timed over the rows it dropped. */
+@Name("org.depaul.tetris.GravityTick")
+@Label("Gravity Tick")
+@Category("Tetris")
+@StackTrace(false)
+@Description("Rows the falling brick dropped on one gravity step")
+public final class GravityTickEvent extends Event {
+
+    @Label("Level")
+    public int level;
+
+    @Label("Rows Due")
+    public long rows;
+
+    @Label("Soft Drop")
+    public boolean softDrop;
+
+    @Label("Late")
+    @Description("How long after its deadline the step ran, a stalled loop shows up here")
+    @Timespan(Timespan.NANOSECONDS)
+    public long late;
+}
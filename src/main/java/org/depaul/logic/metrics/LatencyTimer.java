@@ -0,0 +1,96 @@
+package org.depaul.logic.metrics;
+
+import org.depaul.logic.util.LatencyHistogram;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Latency of one step of the pipeline. Each recording thread gets its own
+ * {@link LatencyHistogram}, so recording is a thread local lookup plus the
+ * histogram's few shifts, no locks and no shared cache lines. Readers merge
+ * them.
+ */
+public final class LatencyTimer implements LatencyTimerMXBean {
+
+    // JMX reads attributes one at a time; reads this close together share a merge
+    private static final long READ_CYCLE_NANOS = 500_000_000L;
+
+    private final String name;
+    private final List<LatencyHistogram> histograms = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<LatencyHistogram> local = ThreadLocal.withInitial(() -> {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histograms.add(histogram);
+        return histogram;
+    });
+    private volatile Read lastRead;
+
+    public LatencyTimer(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(long nanos) {
+        local.get().record(nanos);
+    }
+
+    /** Records the time since {@code startNanos}, a {@link System#nanoTime()}. */
+    public void recordSince(long startNanos) {
+        local.get().record(System.nanoTime() - startNanos);
+    }
+
+    /** Everything recorded so far by every thread. */
+    public LatencyHistogram snapshot() {
+        LatencyHistogram merged = new LatencyHistogram();
+        for (LatencyHistogram histogram : histograms) {
+            merged.add(histogram);
+        }
+        return merged;
+    }
+
+    private LatencyHistogram read() {
+        long now = System.nanoTime();
+        Read read = lastRead;
+        if (read == null || now - read.takenAt() > READ_CYCLE_NANOS) {
+            read = new Read(snapshot(), now);
+            lastRead = read;
+        }
+        return read.histogram();
+    }
+
+    @Override
+    public long getCount() {
+        return read().getCount();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return read().getMean() / 1000;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return read().getValueAtPercentile(50) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return read().getValueAtPercentile(99) / 1000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return read().getValueAtPercentile(99.9) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return read().getMax() / 1000.0;
+    }
+
+    private record Read(LatencyHistogram histogram, long takenAt) {
+    }
+}
@@ -0,0 +1,21 @@
+package org.depaul.logic.metrics;
+
+/**
+ * What JMX shows of a {@link LatencyTimer}, in microseconds since startup.
+ * Attributes read within half a second of each other come from the same
+ * snapshot, so one console poll is consistent.
+ */
+public interface LatencyTimerMXBean {
+
+    long getCount();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+}
@@ -0,0 +1,75 @@
+package org.depaul.logic.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers and counters along the path from a key press to the repaint,
+ * published as MXBeans under {@value #DOMAIN}.
+ * <p>
+ * Off unless the JVM starts with {@code -Dtetris.metrics=true}. Every call
+ * site is guarded by {@link #ENABLED}, a constant to the JIT, so with metrics
+ * off the guarded code, clock reads included, is compiled away.
+ */
+public final class Metrics {
+
+    public static final boolean ENABLED = Boolean.getBoolean("tetris.metrics");
+
+    public static final String DOMAIN = "org.depaul.tetris";
+
+    /** GuiController key handlers, FX thread. */
+    public static final LatencyTimer USER_MOVE = new LatencyTimer("userMove");
+    /** GameController.onMoveEvent handing the move to the logic thread. */
+    public static final LatencyTimer SUBMIT_MOVE = new LatencyTimer("submitMove");
+    /** Board.moveBrick, every move and gravity step. */
+    public static final LatencyTimer MOVE_BRICK = new LatencyTimer("moveBrick");
+    /** Board.clearLines, once per locked brick. */
+    public static final LatencyTimer CLEAR_LINES = new LatencyTimer("clearLines");
+    public static final LatencyTimer REFRESH_BRICK = new LatencyTimer("refreshBrick");
+    public static final LatencyTimer REFRESH_BACKGROUND = new LatencyTimer("refreshGameBackground");
+    /** Key press to the first frame shown after it, the whole pipeline. */
+    public static final LatencyTimer KEY_TO_FRAME = new LatencyTimer("keyToFrame");
+
+    public static final PipelineCounters PIPELINE = new PipelineCounters();
+
+    private static final LatencyTimer[] TIMERS = {
+            USER_MOVE, SUBMIT_MOVE, MOVE_BRICK, CLEAR_LINES, REFRESH_BRICK, REFRESH_BACKGROUND, KEY_TO_FRAME
+    };
+
+    static {
+        if (ENABLED) {
+            register(ManagementFactory.getPlatformMBeanServer());
+            startSampler();
+        }
+    }
+
+    private Metrics() {
+    }
+
+    // closes the events per second window once a second, whoever is reading
+    private static void startSampler() {
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "metrics-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(() -> PIPELINE.sample(System.nanoTime()), 1, 1, TimeUnit.SECONDS);
+    }
+
+    /** Registers every timer and the counters with {@code server}. */
+    public static void register(MBeanServer server) {
+        try {
+            for (LatencyTimer timer : TIMERS) {
+                server.registerMBean(timer, new ObjectName(DOMAIN + ":type=Timer,name=" + timer.getName()));
+            }
+            server.registerMBean(PIPELINE, new ObjectName(DOMAIN + ":type=Pipeline"));
+        } catch (JMException e) {
+            throw new IllegalStateException("cannot register metrics", e);
+        }
+    }
+}
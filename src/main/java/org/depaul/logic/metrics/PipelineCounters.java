@@ -0,0 +1,56 @@
+package org.depaul.logic.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Totals of every game engine in the process. */
+public final class PipelineCounters implements PipelineCountersMXBean {
+
+    private final LongAdder events = new LongAdder();
+    private final LongAdder piecesLocked = new LongAdder();
+    private final LongAdder linesCleared = new LongAdder();
+
+    // where the current rate window started, and the rate over the last closed one
+    private long windowEvents;
+    private long windowStart = System.nanoTime();
+    private volatile double eventsPerSecond;
+
+    /** A move or gravity step reached the board. */
+    public void eventApplied() {
+        events.increment();
+    }
+
+    public void pieceLocked(int lines) {
+        piecesLocked.increment();
+        if (lines > 0) {
+            linesCleared.add(lines);
+        }
+    }
+
+    @Override
+    public long getEvents() {
+        return events.sum();
+    }
+
+    @Override
+    public long getPiecesLocked() {
+        return piecesLocked.sum();
+    }
+
+    @Override
+    public long getLinesCleared() {
+        return linesCleared.sum();
+    }
+
+    @Override
+    public double getEventsPerSecond() {
+        return eventsPerSecond;
+    }
+
+    /** Closes the current rate window at {@code now}, a {@link System#nanoTime()}. */
+    synchronized void sample(long now) {
+        long total = events.sum();
+        eventsPerSecond = (total - windowEvents) * 1e9 / Math.max(1, now - windowStart);
+        windowEvents = total;
+        windowStart = now;
+    }
+}
@@ -0,0 +1,14 @@
+package org.depaul.logic.metrics;
+
+/** What JMX shows of the {@link PipelineCounters}. */
+public interface PipelineCountersMXBean {
+
+    long getEvents();
+
+    long getPiecesLocked();
+
+    long getLinesCleared();
+
+    /** Events applied per second over the last complete one second window. */
+    double getEventsPerSecond();
+}
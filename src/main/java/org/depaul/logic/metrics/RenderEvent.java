@@ -0,0 +1,26 @@
+package org.depaul.logic.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One frame drawn on the FX thread, timed over the refreshes. */
+@Name("org.depaul.tetris.Render")
+@Label("Render")
+@Category("Tetris")
+@StackTrace(false)
+public final class RenderEvent extends Event {
+
+    @Label("Frame")
+    public long frame;
+
+    @Label("Frames Skipped")
+    @Description("Frames the logic thread published that were never shown")
+    public long framesSkipped;
+
+    @Label("Background Redrawn")
+    public boolean backgroundRedrawn;
+}
@@ -0,0 +1,143 @@
+package org.depaul.logic.replay;
+
+import org.depaul.logic.board.SimpleBoard;
+import org.depaul.logic.bricks.SeededBrickGenerator;
+import org.depaul.logic.engine.GameEngine;
+import org.depaul.logic.util.Varint;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A parsed recording. The event stream is not decoded up front, it stays a
+ * view of the buffer it was read from, so a replay inside a mapped archive is
+ * never copied.
+ */
+public final class Replay {
+
+    private final int rows;
+    private final int columns;
+    private final long seed;
+    private final SeededBrickGenerator.Mode mode;
+    private final int previewDepth;
+    private final ByteBuffer events;
+    private final int eventCount;
+    private final long score;
+    private final int lines;
+    private final int pieces;
+    private final boolean gameOver;
+    private final long checksum;
+
+    private Replay(ByteBuffer data) {
+        if (data.getInt() != ReplayFormat.MAGIC) {
+            throw new IllegalArgumentException("not a replay");
+        }
+        byte version = data.get();
+        if (version != ReplayFormat.VERSION) {
+            throw new IllegalArgumentException("unsupported replay version " + version);
+        }
+        rows = Varint.getInt(data);
+        columns = Varint.getInt(data);
+        seed = data.getLong();
+        int modeIndex = data.get();
+        if (modeIndex < 0 || modeIndex >= SeededBrickGenerator.Mode.values().length) {
+            throw new IllegalArgumentException("unknown generator mode " + modeIndex);
+        }
+        mode = SeededBrickGenerator.Mode.values()[modeIndex];
+        previewDepth = Varint.getInt(data);
+
+        int start = data.position();
+        int count = 0;
+        int end;
+        while (true) {
+            end = data.position();
+            if ((Varint.getLong(data) & ReplayFormat.CODE_MASK) == ReplayFormat.END) {
+                break;
+            }
+            count++;
+        }
+        events = data.duplicate().position(start).limit(end).slice();
+        eventCount = count;
+
+        score = Varint.getLong(data);
+        lines = Varint.getInt(data);
+        pieces = Varint.getInt(data);
+        gameOver = data.get() != 0;
+        checksum = data.getLong();
+    }
+
+    /** Parses the replay starting at the buffer's position, without copying it. */
+    public static Replay read(ByteBuffer data) {
+        try {
+            return new Replay(data.duplicate().order(ByteOrder.BIG_ENDIAN));
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("truncated replay", e);
+        }
+    }
+
+    public static Replay read(Path path) throws IOException {
+        return read(ByteBuffer.wrap(Files.readAllBytes(path)));
+    }
+
+    /** Encoded entries, a fresh view positioned at the first one. */
+    public ByteBuffer events() {
+        return events.duplicate();
+    }
+
+    public SeededBrickGenerator newGenerator() {
+        return new SeededBrickGenerator(seed, mode, previewDepth);
+    }
+
+    /** An engine in the state the recorded game started from. */
+    public GameEngine newEngine() {
+        return new GameEngine(new SimpleBoard(rows, columns, newGenerator()));
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public SeededBrickGenerator.Mode getMode() {
+        return mode;
+    }
+
+    public int getPreviewDepth() {
+        return previewDepth;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    public long getScore() {
+        return score;
+    }
+
+    public int getLines() {
+        return lines;
+    }
+
+    public int getPieces() {
+        return pieces;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public long getChecksum() {
+        return checksum;
+    }
+}
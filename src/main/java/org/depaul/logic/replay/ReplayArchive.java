@@ -0,0 +1,149 @@
+package org.depaul.logic.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Read side of an append-only replay archive, everything mapped with
+ * {@link FileChannel#map}. An archive is a directory holding
+ * <pre>
+ * replays.idx          16 byte header, then one 32 byte entry per game:
+ *                      long game id, int segment, int offset, int length,
+ *                      long score, int lines
+ * replays-NNNNN.dat    the replays themselves, back to back
+ * </pre>
+ * Game ids are assigned in order from 0, so the index entry of a game sits at
+ * a fixed position and looking one up is O(1). The index is mapped as one
+ * buffer, which caps an archive at {@link #MAX_GAMES} games. {@link Replay}s handed out are
+ * views of the mapped data, nothing is copied. The archive shows the games
+ * that were in the index when it was opened; appends made later need a new
+ * instance. Safe to share between threads.
+ */
+public final class ReplayArchive implements Closeable {
+
+    static final String INDEX_FILE = "replays.idx";
+    static final int INDEX_MAGIC = 0x54525049; // "TRPI"
+    static final int INDEX_VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int ENTRY_BYTES = 32;
+
+    static final int ID = 0;
+    static final int SEGMENT = 8;
+    static final int OFFSET = 12;
+    static final int LENGTH = 16;
+    static final int SCORE = 20;
+    static final int LINES = 28;
+
+    /** Games whose index entries still fit a 2 GB mapping, about 67 million. */
+    public static final long MAX_GAMES = (Integer.MAX_VALUE - HEADER_BYTES) / ENTRY_BYTES;
+
+    private final ByteBuffer index;
+    private final ByteBuffer[] segments;
+    private final int size;
+
+    private ReplayArchive(ByteBuffer index, ByteBuffer[] segments, int size) {
+        this.index = index;
+        this.segments = segments;
+        this.size = size;
+    }
+
+    public static ReplayArchive open(Path directory) throws IOException {
+        ByteBuffer index;
+        try (FileChannel channel = FileChannel.open(directory.resolve(INDEX_FILE), StandardOpenOption.READ)) {
+            index = map(channel, channel.size());
+        }
+        checkHeader(index);
+        // a torn entry at the end is an append that never finished
+        int size = (index.limit() - HEADER_BYTES) / ENTRY_BYTES;
+
+        int segmentCount = size == 0 ? 0 : index.getInt(position(size - 1) + SEGMENT) + 1;
+        long[] used = new long[segmentCount];
+        for (int i = 0; i < size; i++) {
+            int at = position(i);
+            int segment = index.getInt(at + SEGMENT);
+            used[segment] = Math.max(used[segment], (long) index.getInt(at + OFFSET) + index.getInt(at + LENGTH));
+        }
+        ByteBuffer[] segments = new ByteBuffer[segmentCount];
+        for (int segment = 0; segment < segmentCount; segment++) {
+            try (FileChannel channel = FileChannel.open(segmentFile(directory, segment), StandardOpenOption.READ)) {
+                segments[segment] = map(channel, used[segment]);
+            }
+        }
+        return new ReplayArchive(index, segments, size);
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long bytes) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        return buffer;
+    }
+
+    static void checkHeader(ByteBuffer index) {
+        if (index.limit() < HEADER_BYTES || index.getInt(0) != INDEX_MAGIC) {
+            throw new IllegalArgumentException("not a replay archive index");
+        }
+        if (index.getInt(4) != INDEX_VERSION || index.getInt(8) != ENTRY_BYTES) {
+            throw new IllegalArgumentException("unsupported replay archive version " + index.getInt(4));
+        }
+    }
+
+    static long entry(long gameId) {
+        return HEADER_BYTES + gameId * ENTRY_BYTES;
+    }
+
+    // within the mapped index, so below MAX_GAMES
+    private static int position(long gameId) {
+        return Math.toIntExact(entry(gameId));
+    }
+
+    static Path segmentFile(Path directory, int segment) {
+        return directory.resolve(String.format("replays-%05d.dat", segment));
+    }
+
+    /** Number of games, ids run from 0 to size - 1. */
+    public int size() {
+        return size;
+    }
+
+    public Replay get(long gameId) {
+        return Replay.read(data(gameId));
+    }
+
+    /** The raw bytes of one recorded game, a read-only view of the mapped segment. */
+    public ByteBuffer data(long gameId) {
+        int at = position(Objects.checkIndex(gameId, size));
+        ByteBuffer segment = segments[index.getInt(at + SEGMENT)];
+        int offset = index.getInt(at + OFFSET);
+        return segment.slice(offset, index.getInt(at + LENGTH)).asReadOnlyBuffer();
+    }
+
+    // index only, these never touch the replay data
+
+    public long getScore(long gameId) {
+        return index.getLong(position(Objects.checkIndex(gameId, size)) + SCORE);
+    }
+
+    public int getLines(long gameId) {
+        return index.getInt(position(Objects.checkIndex(gameId, size)) + LINES);
+    }
+
+    /** Visits every game in id order, segment by segment. */
+    public void forEach(Consumer<Replay> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(get(i));
+        }
+    }
+
+    @Override
+    public void close() {
+        // mappings are released with the buffers, nothing to do eagerly
+    }
+}
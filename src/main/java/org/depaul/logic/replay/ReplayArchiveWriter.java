@@ -0,0 +1,169 @@
+package org.depaul.logic.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.depaul.logic.replay.ReplayArchive.ENTRY_BYTES;
+import static org.depaul.logic.replay.ReplayArchive.HEADER_BYTES;
+
+/**
+ * Appends recorded games to a {@link ReplayArchive} directory. Data goes to
+ * the current segment and is forced to disk before the index entry is
+ * written, and the entry is forced in turn, so a crash, power loss included,
+ * can only lose the game being appended. Reopening drops trailing entries that
+ * are torn or zero filled, recognised by an id that is not their slot or data
+ * that does not follow the previous game's, and anything past the last good
+ * one. That costs two syncs per game. A new segment starts once the current
+ * one would grow past {@code maxSegmentBytes}. Appends are synchronized.
+ */
+public class ReplayArchiveWriter implements Closeable {
+
+    public static final long DEFAULT_SEGMENT_BYTES = 1L << 30;
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final FileChannel index;
+    private final ByteBuffer entry = ByteBuffer.allocate(ENTRY_BYTES);
+    private FileChannel data;
+    private int segment;
+    private long dataEnd;
+    private long nextId;
+
+    public ReplayArchiveWriter(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public ReplayArchiveWriter(Path directory, long maxSegmentBytes) throws IOException {
+        if (maxSegmentBytes <= 0 || maxSegmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segments hold 1 byte to 2 GB");
+        }
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+        Files.createDirectories(directory);
+        index = FileChannel.open(directory.resolve(ReplayArchive.INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (index.size() < HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(ReplayArchive.INDEX_MAGIC).putInt(ReplayArchive.INDEX_VERSION).putInt(ENTRY_BYTES).putInt(0);
+            writeFully(index, header.flip(), 0);
+            index.truncate(HEADER_BYTES);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(index, header, 0);
+            ReplayArchive.checkHeader(header);
+        }
+        nextId = (index.size() - HEADER_BYTES) / ENTRY_BYTES;
+        while (nextId > 0 && !isComplete(nextId - 1)) {
+            nextId--;
+        }
+        index.truncate(ReplayArchive.entry(nextId));
+        if (nextId > 0) {
+            readFully(index, entry.clear(), ReplayArchive.entry(nextId - 1));
+            segment = entry.getInt(ReplayArchive.SEGMENT);
+            dataEnd = (long) entry.getInt(ReplayArchive.OFFSET) + entry.getInt(ReplayArchive.LENGTH);
+        }
+        openSegment();
+        // bytes of an append that never got its index entry
+        data.truncate(dataEnd);
+    }
+
+    // an entry that reached the disk whole names its own slot, and its data
+    // starts where the previous game's ended or at the start of the next segment
+    private boolean isComplete(long id) throws IOException {
+        readFully(index, entry.clear(), ReplayArchive.entry(id));
+        if (entry.getLong(ReplayArchive.ID) != id || entry.getInt(ReplayArchive.LENGTH) <= 0) {
+            return false;
+        }
+        int entrySegment = entry.getInt(ReplayArchive.SEGMENT);
+        int offset = entry.getInt(ReplayArchive.OFFSET);
+        if (id == 0) {
+            return entrySegment == 0 && offset == 0;
+        }
+        readFully(index, entry.clear(), ReplayArchive.entry(id - 1));
+        if (entry.getLong(ReplayArchive.ID) != id - 1) {
+            return false;
+        }
+        int previousSegment = entry.getInt(ReplayArchive.SEGMENT);
+        long previousEnd = (long) entry.getInt(ReplayArchive.OFFSET) + entry.getInt(ReplayArchive.LENGTH);
+        return entrySegment == previousSegment && offset == previousEnd
+                || entrySegment == previousSegment + 1 && offset == 0;
+    }
+
+    private void openSegment() throws IOException {
+        data = FileChannel.open(ReplayArchive.segmentFile(directory, segment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Appends one recording, from its position to its limit, and returns the
+     * game id it was stored under.
+     */
+    public synchronized long append(ByteBuffer replay) throws IOException {
+        int length = replay.remaining();
+        if (length > maxSegmentBytes) {
+            throw new IllegalArgumentException("replay of " + length + " bytes does not fit a segment");
+        }
+        if (nextId == ReplayArchive.MAX_GAMES) {
+            throw new IllegalStateException("archive is full at " + ReplayArchive.MAX_GAMES + " games");
+        }
+        // read the trailer up front, this also rejects anything that is not a replay
+        Replay parsed = Replay.read(replay);
+        if (dataEnd + length > maxSegmentBytes) {
+            data.close();
+            segment++;
+            dataEnd = 0;
+            openSegment();
+        }
+        writeFully(data, replay.duplicate(), dataEnd);
+        // an entry must never reach the disk before the data it points at
+        data.force(false);
+
+        long id = nextId;
+        entry.clear();
+        entry.putLong(id).putInt(segment).putInt((int) dataEnd).putInt(length)
+                .putLong(parsed.getScore()).putInt(parsed.getLines());
+        writeFully(index, entry.flip(), ReplayArchive.entry(id));
+        index.force(false);
+        dataEnd += length;
+        nextId++;
+        return id;
+    }
+
+    public synchronized long size() {
+        return nextId;
+    }
+
+    /** Forces everything appended so far to disk. */
+    public synchronized void flush() throws IOException {
+        data.force(false);
+        index.force(false);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("unexpected end of " + channel);
+            }
+            position += read;
+        }
+        buffer.flip();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        data.close();
+        index.close();
+    }
+}
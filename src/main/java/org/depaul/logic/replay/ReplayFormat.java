@@ -0,0 +1,64 @@
+package org.depaul.logic.replay;
+
+import org.depaul.logic.events.EventSource;
+import org.depaul.logic.events.EventType;
+import org.depaul.logic.events.MoveEvent;
+
+/**
+ * Layout of a recorded game:
+ * <pre>
+ * header   int magic, byte version, varint rows, varint columns,
+ *          long seed, byte generator mode, varint preview depth
+ * entries  varint (microseconds since the previous entry &lt;&lt; 4 | code),
+ *          code = event type | event source &lt;&lt; 3
+ * trailer  varint END, varint score, varint lines, varint pieces,
+ *          byte game over, long board checksum
+ * </pre>
+ * Fixed width fields are big endian.
+ */
+final class ReplayFormat {
+
+    static final int MAGIC = 0x5452504C; // "TRPL"
+    static final byte VERSION = 1;
+    static final int CODE_BITS = 4;
+    static final int CODE_MASK = (1 << CODE_BITS) - 1;
+    static final int END = CODE_MASK;
+
+    // decoded events, shared so playback never allocates
+    private static final MoveEvent[] EVENTS = new MoveEvent[END];
+
+    static {
+        for (EventType type : EventType.values()) {
+            for (EventSource source : EventSource.values()) {
+                MoveEvent event = new MoveEvent(type, source);
+                EVENTS[code(event)] = event;
+            }
+        }
+    }
+
+    private ReplayFormat() {
+    }
+
+    static int code(MoveEvent event) {
+        return event.eventType().ordinal() | event.eventSource().ordinal() << 3;
+    }
+
+    static MoveEvent event(int code) {
+        MoveEvent event = code < EVENTS.length ? EVENTS[code] : null;
+        if (event == null) {
+            throw new IllegalArgumentException("unknown event code " + code);
+        }
+        return event;
+    }
+
+    /** FNV-1a over every cell, row by row. */
+    static long checksum(int[][] matrix) {
+        long hash = 0xCBF29CE484222325L;
+        for (int[] row : matrix) {
+            for (int cell : row) {
+                hash = (hash ^ cell) * 0x100000001B3L;
+            }
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,72 @@
+package org.depaul.logic.replay;
+
+import org.depaul.logic.engine.GameEngine;
+import org.depaul.logic.engine.GameLoop;
+import org.depaul.logic.util.Varint;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.depaul.logic.replay.ReplayFormat.CODE_BITS;
+import static org.depaul.logic.replay.ReplayFormat.CODE_MASK;
+
+/**
+ * Feeds a {@link Replay} back into a game. Gravity falls were recorded as the
+ * moves they caused, so the game being replayed must not run its own gravity.
+ */
+public final class ReplayPlayer {
+
+    private ReplayPlayer() {
+    }
+
+    /** Replays every event as fast as possible on a fresh engine. */
+    public static GameEngine play(Replay replay) {
+        GameEngine engine = replay.newEngine();
+        ByteBuffer events = replay.events();
+        while (events.hasRemaining()) {
+            engine.step(ReplayFormat.event((int) (Varint.getLong(events) & CODE_MASK)));
+        }
+        return engine;
+    }
+
+    /** Like {@link #play} but fails unless the game ends exactly as recorded. */
+    public static GameEngine playAndVerify(Replay replay) {
+        GameEngine engine = play(replay);
+        if (!matches(replay, engine)) {
+            throw new IllegalStateException("replay diverged: recorded score " + replay.getScore()
+                    + ", lines " + replay.getLines() + ", pieces " + replay.getPieces()
+                    + "; replayed score " + engine.getScore() + ", lines " + engine.getLinesCleared()
+                    + ", pieces " + engine.getPiecesPlaced());
+        }
+        return engine;
+    }
+
+    public static boolean matches(Replay replay, GameEngine engine) {
+        return engine.getScore() == replay.getScore()
+                && engine.getLinesCleared() == replay.getLines()
+                && engine.getPiecesPlaced() == replay.getPieces()
+                && engine.isGameOver() == replay.isGameOver()
+                && ReplayFormat.checksum(engine.getBoard().getBoardMatrix()) == replay.getChecksum();
+    }
+
+    /**
+     * Submits the events to {@code loop} with their recorded timing. The loop
+     * must run an engine from {@link Replay#newEngine()} without gravity.
+     */
+    public static void playRealTime(Replay replay, GameLoop loop) throws InterruptedException {
+        ByteBuffer events = replay.events();
+        long due = System.nanoTime();
+        while (events.hasRemaining()) {
+            long entry = Varint.getLong(events);
+            due += (entry >>> CODE_BITS) * 1000;
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            loop.submit(ReplayFormat.event((int) (entry & CODE_MASK)));
+        }
+    }
+}
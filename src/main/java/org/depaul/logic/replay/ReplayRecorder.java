@@ -0,0 +1,143 @@
+package org.depaul.logic.replay;
+
+import org.depaul.logic.bricks.SeededBrickGenerator;
+import org.depaul.logic.engine.GameEngine;
+import org.depaul.logic.engine.GameEventListener;
+import org.depaul.logic.events.MoveEvent;
+import org.depaul.logic.util.SplitMix64;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Records every game an engine plays, either into its own file in a directory
+ * or appended to a {@link ReplayArchiveWriter}. Each
+ * new game reseeds the generator first, so the seed in the header is all
+ * playback needs to rebuild the bricks. Runs on the engine's thread; if the
+ * disk gives up, recording stops and the game goes on.
+ */
+public class ReplayRecorder implements GameEventListener {
+
+    private final Path directory;
+    private final ReplayArchiveWriter archive;
+    // the game being recorded when appending to an archive
+    private final GameBuffer buffer;
+    private final GameEngine engine;
+    private final SeededBrickGenerator generator;
+    private final SplitMix64 seeds;
+    private ReplayWriter writer;
+
+    /**
+     * Starts with the engine's current game, which must not have moved since
+     * {@code generator} was created with {@code seed}.
+     */
+    public ReplayRecorder(Path directory, GameEngine engine, SeededBrickGenerator generator, long seed) {
+        this(directory, null, engine, generator, seed);
+    }
+
+    public ReplayRecorder(ReplayArchiveWriter archive, GameEngine engine, SeededBrickGenerator generator, long seed) {
+        this(null, archive, engine, generator, seed);
+    }
+
+    private ReplayRecorder(Path directory, ReplayArchiveWriter archive, GameEngine engine,
+                           SeededBrickGenerator generator, long seed) {
+        this.directory = directory;
+        this.archive = archive;
+        buffer = archive != null ? new GameBuffer() : null;
+        this.engine = engine;
+        this.generator = generator;
+        seeds = new SplitMix64(seed);
+        open(seed);
+    }
+
+    @Override
+    public void onMoveApplied(MoveEvent event) {
+        if (writer != null) {
+            try {
+                writer.write(event);
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+    }
+
+    @Override
+    public void onGameOver() {
+        finish();
+    }
+
+    @Override
+    public void onNewGame() {
+        // an abandoned game still gets its trailer
+        finish();
+        long seed = seeds.nextLong();
+        generator.reseed(seed);
+        open(seed);
+    }
+
+    public void close() {
+        finish();
+    }
+
+    private void open(long seed) {
+        int[][] matrix = engine.getBoard().getBoardMatrix();
+        try {
+            OutputStream out;
+            if (archive != null) {
+                buffer.reset();
+                out = buffer;
+            } else {
+                Files.createDirectories(directory);
+                out = Files.newOutputStream(directory.resolve(String.format("game-%016x.replay", seed)));
+            }
+            writer = new ReplayWriter(out,
+                    System::nanoTime, matrix.length, matrix[0].length,
+                    seed, generator.getMode(), generator.getPreviewDepth());
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void finish() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.finish(engine);
+            writer.close();
+            if (archive != null) {
+                archive.append(buffer.contents());
+            }
+        } catch (IOException e) {
+            System.err.println("replay: " + e);
+        }
+        writer = null;
+    }
+
+    private void fail(IOException e) {
+        System.err.println("replay: recording stopped, " + e);
+        try {
+            if (writer != null) {
+                writer.close();
+            }
+        } catch (IOException ignored) {
+            // already failing
+        }
+        writer = null;
+    }
+
+    private static final class GameBuffer extends ByteArrayOutputStream {
+
+        GameBuffer() {
+            super(4096);
+        }
+
+        ByteBuffer contents() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.depaul.logic.replay;
+
+import org.depaul.logic.bricks.SeededBrickGenerator;
+import org.depaul.logic.engine.GameEngine;
+import org.depaul.logic.events.MoveEvent;
+import org.depaul.logic.util.Varint;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.function.LongSupplier;
+
+import static org.depaul.logic.replay.ReplayFormat.CODE_BITS;
+
+/**
+ * Streams one game in the {@link ReplayFormat} layout. Entries are encoded
+ * into a fixed buffer that is written out whenever it fills up, so a game
+ * of any length costs the same few kilobytes of memory.
+ */
+public class ReplayWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int TRAILER_BYTES = 4 * Varint.MAX_BYTES + 1 + Long.BYTES;
+
+    private final OutputStream out;
+    private final LongSupplier clock;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long lastNanos;
+    private int events;
+    private boolean finished;
+
+    /**
+     * Writes the header. {@code seed}, {@code mode} and {@code previewDepth}
+     * must rebuild the generator exactly as it was when the game started.
+     */
+    public ReplayWriter(OutputStream out, LongSupplier clock, int rows, int columns,
+                        long seed, SeededBrickGenerator.Mode mode, int previewDepth) throws IOException {
+        this.out = out;
+        this.clock = clock;
+        buffer.putInt(ReplayFormat.MAGIC);
+        buffer.put(ReplayFormat.VERSION);
+        Varint.putLong(buffer, rows);
+        Varint.putLong(buffer, columns);
+        buffer.putLong(seed);
+        buffer.put((byte) mode.ordinal());
+        Varint.putLong(buffer, previewDepth);
+        lastNanos = clock.getAsLong();
+    }
+
+    public void write(MoveEvent event) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("replay already finished");
+        }
+        if (buffer.remaining() < Varint.MAX_BYTES) {
+            flushBuffer();
+        }
+        // advance by whole microseconds so rounding never adds up over a game
+        long micros = (clock.getAsLong() - lastNanos) / 1000;
+        lastNanos += micros * 1000;
+        Varint.putLong(buffer, micros << CODE_BITS | ReplayFormat.code(event));
+        events++;
+    }
+
+    public int getEventCount() {
+        return events;
+    }
+
+    /** Ends the stream with the engine's final result, which playback checks against. */
+    public void finish(GameEngine engine) throws IOException {
+        if (finished) {
+            return;
+        }
+        if (buffer.remaining() < TRAILER_BYTES) {
+            flushBuffer();
+        }
+        Varint.putLong(buffer, ReplayFormat.END);
+        Varint.putLong(buffer, engine.getScore());
+        Varint.putLong(buffer, engine.getLinesCleared());
+        Varint.putLong(buffer, engine.getPiecesPlaced());
+        buffer.put((byte) (engine.isGameOver() ? 1 : 0));
+        buffer.putLong(ReplayFormat.checksum(engine.getBoard().getBoardMatrix()));
+        flushBuffer();
+        out.flush();
+        finished = true;
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            flushBuffer();
+        }
+        out.close();
+    }
+}
@@ -1,6 +1,7 @@
 package org.depaul.logic.rotator;
 
 import org.depaul.logic.bricks.Brick;
+import org.depaul.logic.bricks.BrickShape;
 
 public class BrickRotator {
 
@@ -9,13 +10,20 @@ public class BrickRotator {
     private int nextShapeIndex;
 
     public int[][] getNextShapeMatrix() {
-        nextShapeIndex = currentShapeIndex;
-        nextShapeIndex = (++nextShapeIndex) % brick.getBrickMatrixList().size();
-        return brick.getBrickMatrixList().get(nextShapeIndex);
+        return getNextShape().toMatrix();
     }
 
     public int[][] getCurrentShapeMatrix() {
-        return brick.getBrickMatrixList().get(currentShapeIndex);
+        return getCurrentShape().toMatrix();
+    }
+
+    public BrickShape getNextShape() {
+        nextShapeIndex = (currentShapeIndex + 1) % brick.getRotationCount();
+        return brick.getShape(nextShapeIndex);
+    }
+
+    public BrickShape getCurrentShape() {
+        return brick.getShape(currentShapeIndex);
     }
 
     public int getCurrentShapeIndex() {
@@ -30,6 +38,10 @@ public class BrickRotator {
         this.currentShapeIndex = currentShapeIndex;
     }
 
+    public Brick getBrick() {
+        return brick;
+    }
+
     public void setBrick(Brick brick) {
         this.brick = brick;
         currentShapeIndex = 0;
@@ -0,0 +1,102 @@
+package org.depaul.logic.sim;
+
+import org.depaul.logic.board.SimpleBoard;
+import org.depaul.logic.bricks.SeededBrickGenerator;
+import org.depaul.logic.engine.GameEngine;
+import org.depaul.logic.util.SplitMix64;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongFunction;
+
+/**
+ * Plays many independent headless games on a fork/join pool. Every game gets
+ * its own board, generator and policy, seeded from the batch seed and the game
+ * index, so results do not depend on how the batch is split across threads.
+ */
+public class BatchSimulator {
+
+    // games played sequentially by one leaf task
+    private static final int CHUNK = 64;
+
+    private final int width;
+    private final int height;
+    private final int maxPieces;
+    private final LongFunction<MovePolicy> policyFactory;
+    private final ForkJoinPool pool;
+
+    public BatchSimulator(int width, int height, int maxPieces, LongFunction<MovePolicy> policyFactory, ForkJoinPool pool) {
+        this.width = width;
+        this.height = height;
+        this.maxPieces = maxPieces;
+        this.policyFactory = policyFactory;
+        this.pool = pool;
+    }
+
+    public BatchSimulator(int maxPieces) {
+        this(25, 10, maxPieces, RandomMovePolicy::new, ForkJoinPool.commonPool());
+    }
+
+    public SimulationSummary run(int games, long seed) {
+        return pool.invoke(new GamesTask(seed, 0, games));
+    }
+
+    /** Seed of game {@code index} in a batch started with {@code seed}. */
+    public static long gameSeed(long seed, long index) {
+        return SplitMix64.mix(seed + index * 0x9E3779B97F4A7C15L);
+    }
+
+    public GameEngine play(long gameSeed) {
+        GameEngine engine = new GameEngine(new SimpleBoard(width, height, new SeededBrickGenerator(gameSeed, SeededBrickGenerator.Mode.BAG, 1)));
+        MovePolicy policy = policyFactory.apply(SplitMix64.mix(gameSeed ^ 0xD1B54A32D192ED03L));
+        while (!engine.isGameOver() && engine.getPiecesPlaced() < maxPieces) {
+            engine.step(policy.nextMove(engine));
+        }
+        return engine;
+    }
+
+    private final class GamesTask extends RecursiveTask<SimulationSummary> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long seed;
+        private final int from;
+        private final int to;
+
+        GamesTask(long seed, int from, int to) {
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SimulationSummary compute() {
+            if (to - from <= CHUNK) {
+                SimulationSummary summary = new SimulationSummary();
+                for (int i = from; i < to; i++) {
+                    summary.accept(play(gameSeed(seed, i)));
+                }
+                return summary;
+            }
+            int mid = (from + to) >>> 1;
+            GamesTask left = new GamesTask(seed, from, mid);
+            left.fork();
+            SimulationSummary right = new GamesTask(seed, mid, to).compute();
+            return left.join().combine(right);
+        }
+    }
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+        int maxPieces = args.length > 2 ? Integer.parseInt(args[2]) : 1_000;
+
+        BatchSimulator simulator = new BatchSimulator(maxPieces);
+        long start = System.nanoTime();
+        SimulationSummary summary = simulator.run(games, seed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(summary);
+        System.out.printf("%d games in %.2fs (%.0f games/s, %d threads)%n", games, seconds, games / seconds,
+                ForkJoinPool.commonPool().getParallelism());
+    }
+}
@@ -0,0 +1,13 @@
+package org.depaul.logic.sim;
+
+import org.depaul.logic.engine.GameEngine;
+import org.depaul.logic.events.MoveEvent;
+
+/**
+ * Decides the next move of a simulated game. One instance drives exactly one
+ * game, so implementations may keep per-game state without synchronisation.
+ */
+public interface MovePolicy {
+
+    MoveEvent nextMove(GameEngine engine);
+}
@@ -0,0 +1,33 @@
+package org.depaul.logic.sim;
+
+import org.depaul.logic.engine.GameEngine;
+import org.depaul.logic.events.EventSource;
+import org.depaul.logic.events.EventType;
+import org.depaul.logic.events.MoveEvent;
+
+import java.util.SplittableRandom;
+
+/**
+ * Presses a uniformly random key on every move. Cheap baseline for soak runs.
+ */
+public class RandomMovePolicy implements MovePolicy {
+
+    private static final MoveEvent[] MOVES = new MoveEvent[EventType.values().length];
+
+    static {
+        for (EventType type : EventType.values()) {
+            MOVES[type.ordinal()] = new MoveEvent(type, EventSource.THREAD);
+        }
+    }
+
+    private final SplittableRandom random;
+
+    public RandomMovePolicy(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public MoveEvent nextMove(GameEngine engine) {
+        return MOVES[random.nextInt(MOVES.length)];
+    }
+}
@@ -0,0 +1,57 @@
+package org.depaul.logic.sim;
+
+import org.depaul.logic.engine.GameEngine;
+
+import java.util.LongSummaryStatistics;
+
+/**
+ * Score, lines and pieces statistics over a batch of finished games. Not thread
+ * safe: every worker fills its own summary and they are combined at the end.
+ */
+public class SimulationSummary {
+
+    private final LongSummaryStatistics score = new LongSummaryStatistics();
+    private final LongSummaryStatistics linesCleared = new LongSummaryStatistics();
+    private final LongSummaryStatistics piecesPlaced = new LongSummaryStatistics();
+
+    public void accept(GameEngine engine) {
+        score.accept(engine.getScore());
+        linesCleared.accept(engine.getLinesCleared());
+        piecesPlaced.accept(engine.getPiecesPlaced());
+    }
+
+    public SimulationSummary combine(SimulationSummary other) {
+        score.combine(other.score);
+        linesCleared.combine(other.linesCleared);
+        piecesPlaced.combine(other.piecesPlaced);
+        return this;
+    }
+
+    public long getGames() {
+        return score.getCount();
+    }
+
+    public LongSummaryStatistics getScore() {
+        return score;
+    }
+
+    public LongSummaryStatistics getLinesCleared() {
+        return linesCleared;
+    }
+
+    public LongSummaryStatistics getPiecesPlaced() {
+        return piecesPlaced;
+    }
+
+    @Override
+    public String toString() {
+        return "games=" + getGames()
+                + "\nscore: " + format(score)
+                + "\nlines: " + format(linesCleared)
+                + "\npieces: " + format(piecesPlaced);
+    }
+
+    private static String format(LongSummaryStatistics stats) {
+        return String.format("min=%d avg=%.2f max=%d sum=%d", stats.getMin(), stats.getAverage(), stats.getMax(), stats.getSum());
+    }
+}
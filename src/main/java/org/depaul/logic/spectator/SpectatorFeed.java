@@ -0,0 +1,313 @@
+package org.depaul.logic.spectator;
+
+import org.depaul.logic.board.Board;
+import org.depaul.logic.board.BoardListener;
+import org.depaul.logic.bricks.BrickShape;
+import org.depaul.logic.data.ViewData;
+import org.depaul.logic.engine.GameEngine;
+import org.depaul.logic.util.Varint;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+
+/**
+ * Live feed of one game for any number of spectators: a keyframe, then one
+ * delta per {@link #commit()} holding only what changed, see
+ * {@link SpectatorFormat}. Cell changes and line clears come straight from the
+ * board's {@link BoardListener} callbacks, nothing is diffed.
+ * <p>
+ * Every message is encoded once into a shared ring; each {@link Subscription}
+ * is just a read position in it, so fan-out costs the game thread nothing per
+ * subscriber. The game never waits for spectators: one that falls a whole ring
+ * behind skips ahead to the latest keyframe instead. A keyframe goes into the
+ * ring at least every half ring, so there is always one to resume from.
+ * <p>
+ * The game's own thread calls {@link #commit()}, typically once per frame;
+ * subscriptions may be polled from any thread, one thread per subscription.
+ */
+public final class SpectatorFeed implements BoardListener {
+
+    public static final int DEFAULT_CAPACITY = 64 * 1024;
+
+    private final GameEngine engine;
+    private final int rows;
+    private final int columns;
+
+    // the log: byte n of the stream lives at ring[n & mask]
+    private final byte[] ring;
+    private final int mask;
+    // readers may read up to published; the writer may be overwriting anything below claimed - ring.length
+    private volatile long published;
+    private volatile long claimed;
+    private volatile Keyframe keyframe;
+    private long lastKeyframeAt;
+
+    // ops collected since the last commit, and the message being built
+    private final ByteBuffer ops;
+    private final ByteBuffer message;
+    private int opCount;
+    private boolean needsKeyframe = true;
+
+    // what the last message told spectators about
+    private ViewData sentPiece;
+    private int sentNext = -1;
+    private long sentScore;
+    private boolean sentGameOver;
+
+    /** A complete keyframe and the stream position right after it. */
+    private static final class Keyframe {
+        final byte[] bytes;
+        final long position;
+
+        Keyframe(byte[] bytes, long position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+    }
+
+    public SpectatorFeed(GameEngine engine) {
+        this(engine, DEFAULT_CAPACITY);
+    }
+
+    /** {@code capacity} is the ring size in bytes, a power of two. */
+    public SpectatorFeed(GameEngine engine, int capacity) {
+        Board board = engine.getBoard();
+        this.engine = engine;
+        rows = board.getBoardMatrix().length;
+        columns = board.getBoardMatrix()[0].length;
+        int keyframeBytes = SpectatorFormat.maxKeyframeBytes(rows, columns);
+        if (Integer.bitCount(capacity) != 1 || capacity < 4 * keyframeBytes) {
+            throw new IllegalArgumentException("capacity must be a power of two of at least " + 4 * keyframeBytes + " bytes");
+        }
+        ring = new byte[capacity];
+        mask = capacity - 1;
+        // a commit after a full board of merges still fits
+        ops = ByteBuffer.allocate(keyframeBytes + rows * columns * 2 * Varint.MAX_BYTES);
+        message = ByteBuffer.allocate(Varint.MAX_BYTES + Math.max(keyframeBytes, ops.capacity() + 64));
+        board.setBoardListener(this);
+        commit();
+    }
+
+    @Override
+    public void onBrickMerged(BrickShape shape, int x, int y) {
+        if (needsKeyframe) {
+            return;
+        }
+        ops.put(SpectatorFormat.OP_CELLS);
+        Varint.putLong(ops, shape.getCellCount());
+        for (int n = 0; n < shape.getCellCount(); n++) {
+            int row = y + shape.getCellRow(n);
+            int col = x + shape.getCellCol(n);
+            Varint.putLong(ops, (long) row * columns + col);
+            ops.put((byte) shape.getCell(shape.getCellRow(n), shape.getCellCol(n)));
+        }
+        opsAdded();
+    }
+
+    @Override
+    public void onRowsCleared(long rowMask) {
+        if (needsKeyframe) {
+            return;
+        }
+        ops.put(SpectatorFormat.OP_CLEAR);
+        Varint.putLong(ops, rowMask);
+        opsAdded();
+    }
+
+    @Override
+    public void onBoardReset() {
+        needsKeyframe = true;
+    }
+
+    private void opsAdded() {
+        opCount++;
+        // nobody committed for a long while, a keyframe is cheaper than the backlog
+        if (ops.remaining() < 2 * BrickShape.SIZE * BrickShape.SIZE * Varint.MAX_BYTES) {
+            needsKeyframe = true;
+        }
+    }
+
+    /**
+     * Publishes everything that changed since the last commit: the cells and
+     * clears already reported by the board, plus the falling brick, preview,
+     * score and game over if they differ from what was last sent. Game thread
+     * only.
+     */
+    public void commit() {
+        if (needsKeyframe || published - lastKeyframeAt >= ring.length / 2) {
+            writeKeyframe();
+            return;
+        }
+        ViewData piece = engine.getBoard().getViewData();
+        if (!piece.equals(sentPiece)) {
+            ops.put(SpectatorFormat.OP_PIECE);
+            SpectatorFormat.putPiece(ops, piece);
+            sentPiece = piece;
+            opCount++;
+        }
+        int next = piece.nextBrickShape().getColour() - 1;
+        if (next != sentNext) {
+            ops.put(SpectatorFormat.OP_NEXT).put((byte) next);
+            sentNext = next;
+            opCount++;
+        }
+        long score = engine.getScore();
+        if (score != sentScore) {
+            ops.put(SpectatorFormat.OP_SCORE);
+            Varint.putLong(ops, score - sentScore);
+            sentScore = score;
+            opCount++;
+        }
+        if (engine.isGameOver() != sentGameOver) {
+            ops.put(SpectatorFormat.OP_GAME_OVER);
+            sentGameOver = true;
+            opCount++;
+        }
+        if (opCount == 0) {
+            return;
+        }
+        message.clear();
+        message.put(SpectatorFormat.DELTA);
+        message.put(ops.flip());
+        ops.clear();
+        opCount = 0;
+        append(message.flip());
+    }
+
+    private void writeKeyframe() {
+        ops.clear();
+        opCount = 0;
+        needsKeyframe = false;
+        ViewData piece = engine.getBoard().getViewData();
+        sentPiece = piece;
+        sentNext = piece.nextBrickShape().getColour() - 1;
+        sentScore = engine.getScore();
+        sentGameOver = engine.isGameOver();
+
+        message.clear();
+        SpectatorFormat.writeKeyframe(message, engine.getBoard().getBoardMatrix(), piece, sentScore, sentGameOver);
+        message.flip();
+        byte[] bytes = new byte[Varint.size(message.remaining()) + message.remaining()];
+        ByteBuffer framed = ByteBuffer.wrap(bytes);
+        Varint.putLong(framed, message.remaining());
+        framed.put(message);
+        message.rewind();
+        append(message);
+        lastKeyframeAt = published;
+        keyframe = new Keyframe(bytes, published);
+    }
+
+    // writes one length-prefixed message into the ring
+    private void append(ByteBuffer body) {
+        long start = published;
+        long end = start + Varint.size(body.remaining()) + body.remaining();
+        claimed = end;
+        // the claim must be visible before any byte it covers is overwritten
+        VarHandle.storeStoreFence();
+        long position = start;
+        long length = body.remaining();
+        while (length >= 0x80) {
+            ring[(int) (position++ & mask)] = (byte) (length | 0x80);
+            length >>>= 7;
+        }
+        ring[(int) (position++ & mask)] = (byte) length;
+        while (body.hasRemaining()) {
+            ring[(int) (position++ & mask)] = body.get();
+        }
+        published = end;
+    }
+
+    public Subscription subscribe() {
+        return new Subscription();
+    }
+
+    /** Bytes written to the stream so far. */
+    public long getPosition() {
+        return published;
+    }
+
+    /**
+     * One spectator's read position. Starts at the latest keyframe; if the
+     * game laps it, the next poll resumes from the latest keyframe again.
+     */
+    public final class Subscription {
+
+        private long cursor = -1;
+        private long resyncs;
+
+        /**
+         * Copies as many whole messages as fit into {@code out} and returns
+         * how many bytes that was, 0 when there is nothing new or {@code out}
+         * has no room for the next message.
+         */
+        public int poll(ByteBuffer out) {
+            int start = out.position();
+            if (cursor < 0 || published - cursor > ring.length) {
+                if (!resync(out)) {
+                    return 0;
+                }
+            }
+            long head = published;
+            long position = cursor;
+            // lapped between the check above and reading head
+            boolean lapped = head - cursor > ring.length;
+            while (!lapped && position < head) {
+                // length prefix, then the body
+                long length = 0;
+                int shift = 0;
+                long p = position;
+                byte b;
+                do {
+                    b = ring[(int) (p++ & mask)];
+                    length |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0 && shift < 35);
+                long next = p + length;
+                // no real message is longer than the ring, this prefix was overwritten
+                if (next - position > ring.length) {
+                    lapped = true;
+                    break;
+                }
+                if (next - position > out.remaining() || next > head) {
+                    break;
+                }
+                int from = (int) (position & mask);
+                int size = (int) (next - position);
+                int first = Math.min(size, ring.length - from);
+                out.put(ring, from, first);
+                out.put(ring, 0, size - first);
+                position = next;
+            }
+            // everything copied must predate the writer coming round again
+            VarHandle.loadLoadFence();
+            if (lapped || claimed - ring.length > cursor) {
+                out.position(start);
+                cursor = -1;
+                return poll(out);
+            }
+            cursor = position;
+            return out.position() - start;
+        }
+
+        private boolean resync(ByteBuffer out) {
+            Keyframe latest = keyframe;
+            if (latest.bytes.length > out.remaining()) {
+                return false;
+            }
+            out.put(latest.bytes);
+            cursor = latest.position;
+            resyncs++;
+            return true;
+        }
+
+        /** Bytes published but not polled yet. */
+        public long getLag() {
+            return cursor < 0 ? 0 : published - cursor;
+        }
+
+        /** Times this subscriber fell too far behind and skipped to a keyframe, the first join included. */
+        public long getResyncs() {
+            return resyncs;
+        }
+    }
+}
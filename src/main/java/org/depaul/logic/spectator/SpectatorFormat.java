@@ -0,0 +1,93 @@
+package org.depaul.logic.spectator;
+
+import org.depaul.logic.bricks.BrickShape;
+import org.depaul.logic.data.ViewData;
+import org.depaul.logic.util.Varint;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Spectator stream layout. Every message is a varint length followed by that
+ * many bytes:
+ * <pre>
+ * KEYFRAME  varint rows, varint columns, cells two per byte (low nibble first),
+ *           piece, byte next brick, varint score, byte game over
+ * DELTA     ops until the end of the message:
+ *   OP_CELLS     varint count, then per cell varint row * columns + column, byte colour
+ *   OP_CLEAR     varint mask of the rows removed, bit n == row n before the clear
+ *   OP_PIECE     piece
+ *   OP_NEXT      byte next brick
+ *   OP_SCORE     varint points added
+ *   OP_GAME_OVER
+ * piece     byte brick id, byte rotation, zigzag varint x, varint y
+ * </pre>
+ * Bricks are {@link org.depaul.logic.bricks.Bricks} ids. Cell ops come before
+ * the clear they caused, so applying ops in order rebuilds the board.
+ */
+public final class SpectatorFormat {
+
+    public static final byte KEYFRAME = 1;
+    public static final byte DELTA = 2;
+
+    public static final byte OP_CELLS = 1;
+    public static final byte OP_CLEAR = 2;
+    public static final byte OP_PIECE = 3;
+    public static final byte OP_NEXT = 4;
+    public static final byte OP_SCORE = 5;
+    public static final byte OP_GAME_OVER = 6;
+
+    private SpectatorFormat() {
+    }
+
+    /** Upper bound of a keyframe message body for this board size. */
+    public static int maxKeyframeBytes(int rows, int columns) {
+        return 1 + 2 * Varint.MAX_BYTES + (rows * columns + 1) / 2 + pieceBytes() + 1 + Varint.MAX_BYTES + 1;
+    }
+
+    private static int pieceBytes() {
+        return 2 + 2 * Varint.MAX_BYTES;
+    }
+
+    static void writeKeyframe(ByteBuffer out, int[][] matrix, ViewData piece, long score, boolean gameOver) {
+        out.put(KEYFRAME);
+        Varint.putLong(out, matrix.length);
+        Varint.putLong(out, matrix[0].length);
+        int pending = -1;
+        for (int[] cells : matrix) {
+            for (int cell : cells) {
+                if (pending < 0) {
+                    pending = cell;
+                } else {
+                    out.put((byte) (pending | cell << 4));
+                    pending = -1;
+                }
+            }
+        }
+        if (pending >= 0) {
+            out.put((byte) pending);
+        }
+        putPiece(out, piece);
+        out.put((byte) (piece.nextBrickShape().getColour() - 1));
+        Varint.putLong(out, score);
+        out.put((byte) (gameOver ? 1 : 0));
+    }
+
+    static void putPiece(ByteBuffer out, ViewData piece) {
+        BrickShape shape = piece.brickShape();
+        out.put((byte) (shape.getColour() - 1));
+        out.put((byte) shape.getRotation());
+        int x = piece.getxPosition();
+        Varint.putLong(out, ((x << 1) ^ (x >> 31)) & 0xFFFFFFFFL);
+        Varint.putLong(out, piece.getyPosition());
+    }
+
+    static int getZigzag(ByteBuffer in) {
+        // zigzag uses all 32 bits, more than getInt accepts
+        long value = Varint.getLong(in);
+        if (value >>> 32 != 0) {
+            throw new IllegalArgumentException("zigzag varint does not fit an int: " + value);
+        }
+        int zigzag = (int) value;
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+}
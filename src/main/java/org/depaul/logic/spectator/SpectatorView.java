@@ -0,0 +1,188 @@
+package org.depaul.logic.spectator;
+
+import org.depaul.logic.util.Varint;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Spectator side of a {@link SpectatorFeed}: rebuilds the board, falling
+ * brick, preview and score from the stream. Nothing is known until the first
+ * keyframe arrives; deltas before it are skipped.
+ */
+public final class SpectatorView {
+
+    private int[][] matrix;
+    private int brick = -1;
+    private int rotation;
+    private int x;
+    private int y;
+    private int nextBrick = -1;
+    private long score;
+    private boolean gameOver;
+    private long keyframes;
+    private long deltas;
+
+    /**
+     * Applies every complete message in {@code in} and leaves a trailing
+     * partial one in place for the next call.
+     */
+    public void accept(ByteBuffer in) {
+        while (in.hasRemaining()) {
+            int start = in.position();
+            long length = readLength(in);
+            if (length < 0 || in.remaining() < length) {
+                in.position(start);
+                return;
+            }
+            int end = in.position() + (int) length;
+            ByteBuffer body = in.slice(in.position(), (int) length);
+            in.position(end);
+            byte kind = body.get();
+            if (kind == SpectatorFormat.KEYFRAME) {
+                readKeyframe(body);
+            } else if (kind == SpectatorFormat.DELTA && matrix != null) {
+                readDelta(body);
+            }
+        }
+    }
+
+    // -1 when the length itself is cut off
+    private static long readLength(ByteBuffer in) {
+        long length = 0;
+        for (int shift = 0; in.hasRemaining(); shift += 7) {
+            byte b = in.get();
+            length |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return length;
+            }
+        }
+        return -1;
+    }
+
+    private void readKeyframe(ByteBuffer in) {
+        int rows = Varint.getInt(in);
+        int columns = Varint.getInt(in);
+        if (matrix == null || matrix.length != rows || matrix[0].length != columns) {
+            matrix = new int[rows][columns];
+        }
+        int packed = 0;
+        boolean high = false;
+        for (int[] cells : matrix) {
+            for (int col = 0; col < columns; col++) {
+                if (high) {
+                    cells[col] = packed >>> 4;
+                } else {
+                    packed = in.get() & 0xFF;
+                    cells[col] = packed & 0xF;
+                }
+                high = !high;
+            }
+        }
+        readPiece(in);
+        nextBrick = in.get();
+        score = Varint.getLong(in);
+        gameOver = in.get() != 0;
+        keyframes++;
+    }
+
+    private void readDelta(ByteBuffer in) {
+        int columns = matrix[0].length;
+        while (in.hasRemaining()) {
+            byte op = in.get();
+            switch (op) {
+                case SpectatorFormat.OP_CELLS:
+                    for (int n = Varint.getInt(in); n > 0; n--) {
+                        int index = Varint.getInt(in);
+                        matrix[index / columns][index % columns] = in.get();
+                    }
+                    break;
+                case SpectatorFormat.OP_CLEAR:
+                    clear(Varint.getLong(in));
+                    break;
+                case SpectatorFormat.OP_PIECE:
+                    readPiece(in);
+                    break;
+                case SpectatorFormat.OP_NEXT:
+                    nextBrick = in.get();
+                    break;
+                case SpectatorFormat.OP_SCORE:
+                    score += Varint.getLong(in);
+                    break;
+                case SpectatorFormat.OP_GAME_OVER:
+                    gameOver = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown spectator op " + op);
+            }
+        }
+        deltas++;
+    }
+
+    // drops the masked rows, the rows above move down and fresh rows appear on top
+    private void clear(long rowMask) {
+        int write = matrix.length - 1;
+        for (int read = matrix.length - 1; read >= 0; read--) {
+            if (read < Long.SIZE && (rowMask & 1L << read) != 0) {
+                continue;
+            }
+            if (write != read) {
+                int[] row = matrix[write];
+                matrix[write] = matrix[read];
+                matrix[read] = row;
+            }
+            write--;
+        }
+        for (int row = write; row >= 0; row--) {
+            Arrays.fill(matrix[row], 0);
+        }
+    }
+
+    private void readPiece(ByteBuffer in) {
+        brick = in.get();
+        rotation = in.get();
+        x = SpectatorFormat.getZigzag(in);
+        y = Varint.getInt(in);
+    }
+
+    /** The board as last seen, null before the first keyframe. Do not modify. */
+    public int[][] getBoardMatrix() {
+        return matrix;
+    }
+
+    public int getBrick() {
+        return brick;
+    }
+
+    public int getRotation() {
+        return rotation;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getNextBrick() {
+        return nextBrick;
+    }
+
+    public long getScore() {
+        return score;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public long getKeyframes() {
+        return keyframes;
+    }
+
+    public long getDeltas() {
+        return deltas;
+    }
+}
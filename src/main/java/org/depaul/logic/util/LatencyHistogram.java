@@ -0,0 +1,116 @@
+package org.depaul.logic.util;
+
+import java.util.Arrays;
+
+/**
+ * Log-linear histogram of non-negative longs, usually nanoseconds, in the
+ * style of HdrHistogram: every power of two is split into 64 linear buckets,
+ * so any value is reported to within 1/64 of itself. Recording is a few
+ * shifts and one array increment and never allocates.
+ * <p>
+ * One thread records; others may read counts while it does, they just see
+ * some of the values recorded in the meantime and not others.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 7;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF = SUB_COUNT / 2;
+    // the largest long has its top bit at 62, shifted by 56
+    private static final int BUCKETS = (Long.SIZE - SUB_BITS + 2) * HALF;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long max;
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts[index(value)]++;
+        count++;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /** Adds every value recorded by {@code other}. */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        max = Math.max(max, other.max);
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        max = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        if (count == 0) {
+            return 0;
+        }
+        double sum = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] != 0) {
+                sum += (double) counts[i] * (lowestValue(i) + highestValue(i)) / 2;
+            }
+        }
+        return sum / count;
+    }
+
+    /**
+     * Smallest value that at least {@code percentile} percent of the recorded
+     * values are equal to or below, rounded up to its bucket's upper edge.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    static int index(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        // value >>> shift lands in [HALF, SUB_COUNT)
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1);
+        return (shift + 1) * HALF + (int) (value >>> shift) - HALF;
+    }
+
+    static long lowestValue(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = index / HALF - 1;
+        return (long) (index % HALF + HALF) << shift;
+    }
+
+    static long highestValue(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = index / HALF - 1;
+        return ((long) (index % HALF + HALF + 1) << shift) - 1;
+    }
+}
@@ -1,5 +1,7 @@
 package org.depaul.logic.util;
 
+import org.depaul.logic.bricks.BrickShape;
+
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -24,6 +26,17 @@ public class Operations {
         return false;
     }
 
+    public static boolean intersectMatrix(final int[][] matrix, final BrickShape brick, int x, int y) {
+        for (int n = 0; n < brick.getCellCount(); n++) {
+            int targetX = x + brick.getCellCol(n);
+            int targetY = y + brick.getCellRow(n);
+            if (targetY < 0 || checkOutOfBound(matrix, targetX, targetY) || matrix[targetY][targetX] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static boolean checkOutOfBound(int[][] matrix, int targetX, int targetY) {
         boolean returnValue = targetX < 0 || targetY >= matrix.length || targetX >= matrix[targetY].length;
         return returnValue;
@@ -54,6 +67,15 @@ public class Operations {
         return copy;
     }
 
+    // Unlike mergeMatrix this writes straight into filledFields
+    public static void mergeShape(int[][] filledFields, BrickShape brick, int x, int y) {
+        for (int n = 0; n < brick.getCellCount(); n++) {
+            int row = brick.getCellRow(n);
+            int col = brick.getCellCol(n);
+            filledFields[y + row][x + col] = brick.getCell(row, col);
+        }
+    }
+
     public static List<int[][]> deepCopyList(List<int[][]> list){
         return list.stream().map(Operations::copyMatrix).collect(Collectors.toList());
     }
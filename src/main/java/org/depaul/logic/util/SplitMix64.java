@@ -0,0 +1,52 @@
+package org.depaul.logic.util;
+
+/**
+ * SplitMix64 generator. Same algorithm as {@link java.util.SplittableRandom} but
+ * with a fixed gamma, so the whole generator is its 64-bit state and games can
+ * be checkpointed and replayed from it. Not thread safe; use {@link #split()}
+ * to give another thread its own generator.
+ */
+public final class SplitMix64 {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    public SplitMix64(long seed) {
+        state = seed;
+    }
+
+    public long nextLong() {
+        return mix(state += GOLDEN_GAMMA);
+    }
+
+    /** Uniform int in [0, bound) using a multiply-shift instead of a division. */
+    public int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * A generator seeded from this one's next value. It shares the gamma, so
+     * it walks the same sequence from another point: fine for separate games
+     * or clients, but not a statistically independent stream the way
+     * {@link java.util.SplittableRandom#split()} is, and two splits can
+     * overlap after enough draws.
+     */
+    public SplitMix64 split() {
+        return new SplitMix64(nextLong());
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,54 @@
+package org.depaul.logic.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * LEB128 style variable length encoding of unsigned longs: seven bits per
+ * byte, low bits first, high bit set on every byte but the last. Values below
+ * 128 take a single byte, a full long takes ten.
+ */
+public final class Varint {
+
+    public static final int MAX_BYTES = 10;
+
+    private Varint() {
+    }
+
+    public static void putLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public static long getLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("varint longer than " + MAX_BYTES + " bytes");
+    }
+
+    // counters and sizes are never negative, a value past Integer.MAX_VALUE is corrupt input
+    public static int getInt(ByteBuffer buffer) {
+        long value = getLong(buffer);
+        if (value >>> 31 != 0) {
+            throw new IllegalArgumentException("varint does not fit an int: " + value);
+        }
+        return (int) value;
+    }
+
+    public static int size(long value) {
+        int bytes = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            bytes++;
+        }
+        return bytes;
+    }
+}
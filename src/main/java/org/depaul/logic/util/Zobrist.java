@@ -0,0 +1,60 @@
+package org.depaul.logic.util;
+
+/**
+ * Zobrist keys for board hashes. A row's content hash is the XOR of one key per
+ * filled (column, colour) cell, so setting a cell is a single XOR. The board
+ * hash is the XOR of every non-empty row's content mixed with its row index:
+ * when line clears shift rows down only the moved rows are remixed, no cells
+ * are read again.
+ */
+public final class Zobrist {
+
+    // enough for any board the game builds, wider ones derive their keys on the fly
+    private static final int TABLE_COLUMNS = 32;
+    // colours fit in four bits, see SimpleBoard.writeState
+    private static final int COLOURS = 16;
+    private static final long SEED = 0x7E7215L;
+    private static final long[] CELL_KEYS = new long[TABLE_COLUMNS * COLOURS];
+
+    static {
+        for (int i = 0; i < CELL_KEYS.length; i++) {
+            CELL_KEYS[i] = key(i);
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    public static long cell(int col, int colour) {
+        int index = col * COLOURS + (colour & (COLOURS - 1));
+        return col < TABLE_COLUMNS ? CELL_KEYS[index] : key(index);
+    }
+
+    private static long key(int index) {
+        return SplitMix64.mix(SEED + (index + 1) * 0x9E3779B97F4A7C15L);
+    }
+
+    /** What a row holding {@code rowHash} at index {@code row} adds to the board hash. */
+    public static long row(int row, long rowHash) {
+        return rowHash == 0 ? 0 : SplitMix64.mix(rowHash + (row + 1) * 0x9E3779B97F4A7C15L);
+    }
+
+    public static long rowHash(int[] cells) {
+        long hash = 0;
+        for (int col = 0; col < cells.length; col++) {
+            if (cells[col] != 0) {
+                hash ^= cell(col, cells[col]);
+            }
+        }
+        return hash;
+    }
+
+    /** From-scratch hash of a whole matrix, equal to what the boards keep incrementally. */
+    public static long hash(int[][] matrix) {
+        long hash = 0;
+        for (int row = 0; row < matrix.length; row++) {
+            hash ^= row(row, rowHash(matrix[row]));
+        }
+        return hash;
+    }
+}
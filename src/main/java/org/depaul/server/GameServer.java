@@ -0,0 +1,114 @@
+package org.depaul.server;
+
+import org.depaul.logic.engine.GravityScheduler;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Hosts many independent games over TCP, see {@link Protocol}. One acceptor
+ * thread hands connections round robin to a fixed set of {@link SessionLoop}
+ * selector threads, one per core by default, so a session costs a board and
+ * two small buffers rather than a thread.
+ * <p>
+ * {@code java org.depaul.server.GameServer [port] [loops]}
+ */
+public final class GameServer implements AutoCloseable {
+
+    private final ServerSocketChannel server;
+    private final SessionLoop[] loops;
+    private final Thread acceptor;
+    private volatile boolean running = true;
+
+    /** Every session with guideline gravity, on an ephemeral loopback port when {@code port} is 0. */
+    public GameServer(int port, int loopCount) throws IOException {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), loopCount, GravityScheduler::guidelineFallNanos);
+    }
+
+    /**
+     * @param levelCurve nanoseconds per row by level, as for {@link GravityScheduler};
+     *                   null for no gravity, bricks only move when a client says so
+     */
+    public GameServer(InetSocketAddress address, int loopCount, IntToLongFunction levelCurve) throws IOException {
+        server = ServerSocketChannel.open();
+        server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        server.bind(address, 4096);
+        loops = new SessionLoop[loopCount];
+        long seed = ThreadLocalRandom.current().nextLong();
+        for (int i = 0; i < loopCount; i++) {
+            loops[i] = new SessionLoop(levelCurve, seed + i);
+            Thread thread = new Thread(loops[i], "session-loop-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        acceptor = new Thread(this::accept, "session-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private void accept() {
+        int next = 0;
+        while (running) {
+            try {
+                SocketChannel channel = server.accept();
+                // every ack is a few bytes, send it now rather than batching
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                loops[next].add(channel);
+                next = (next + 1) % loops.length;
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                System.err.println("accept failed: " + e);
+            }
+        }
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    public int getLoopCount() {
+        return loops.length;
+    }
+
+    public int getSessionCount() {
+        int sessions = 0;
+        for (SessionLoop loop : loops) {
+            sessions += loop.getSessionCount();
+        }
+        return sessions;
+    }
+
+    /** Summed over all loops, the CPU time the sessions actually used. */
+    public long getBusyNanos() {
+        long busy = 0;
+        for (SessionLoop loop : loops) {
+            busy += loop.getBusyNanos();
+        }
+        return busy;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        server.close();
+        for (SessionLoop loop : loops) {
+            loop.stop();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+        int loops = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        GameServer server = new GameServer(new InetSocketAddress(port), loops, GravityScheduler::guidelineFallNanos);
+        System.out.println("serving on port " + server.getPort() + " with " + loops + " loops");
+        server.acceptor.join();
+    }
+}
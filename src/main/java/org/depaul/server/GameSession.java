@@ -0,0 +1,158 @@
+package org.depaul.server;
+
+import org.depaul.logic.board.SimpleBoard;
+import org.depaul.logic.bricks.SeededBrickGenerator;
+import org.depaul.logic.data.ViewData;
+import org.depaul.logic.engine.GameEngine;
+import org.depaul.logic.engine.GravityScheduler;
+import org.depaul.logic.events.EventType;
+import org.depaul.logic.events.MoveEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.function.IntToLongFunction;
+
+/**
+ * One connected player: a game with its own board, score and gravity, plus
+ * the connection's buffers. Owned by a single {@link SessionLoop}, never
+ * touched by any other thread.
+ */
+final class GameSession {
+
+    static final int ROWS = 25;
+    static final int COLUMNS = 10;
+
+    // a client that stops reading is cut off once this much output is queued
+    private static final int OUTPUT_BYTES = 8 * 1024;
+    private static final int INPUT_BYTES = 512;
+
+    private final SocketChannel channel;
+    private final GameEngine engine;
+    private final GravityScheduler gravity;
+    private final ByteBuffer in = ByteBuffer.allocate(INPUT_BYTES);
+    // write mode between flushes
+    private final ByteBuffer out = ByteBuffer.allocate(OUTPUT_BYTES);
+
+    SelectionKey key;
+    // position in the loop's deadline heap, -1 when not in it
+    int heapIndex = -1;
+    long deadline = Long.MAX_VALUE;
+
+    GameSession(SocketChannel channel, long seed, IntToLongFunction levelCurve, long now) {
+        this.channel = channel;
+        engine = new GameEngine(new SimpleBoard(ROWS, COLUMNS, new SeededBrickGenerator(seed, SeededBrickGenerator.Mode.UNIFORM, 1)));
+        gravity = levelCurve == null ? null : new GravityScheduler(engine, levelCurve,
+                GravityScheduler.DEFAULT_LOCK_DELAY_NANOS, GravityScheduler.DEFAULT_SOFT_DROP_FACTOR);
+        if (gravity != null) {
+            gravity.start(now);
+        }
+        out.put(Protocol.HELLO).putLong(seed);
+    }
+
+    SocketChannel channel() {
+        return channel;
+    }
+
+    GameEngine engine() {
+        return engine;
+    }
+
+    /**
+     * Reads whatever the client sent and answers every message. Returns false
+     * when the connection is finished, closed by the client or overflowing.
+     */
+    boolean read(long now) throws IOException {
+        if (channel.read(in) < 0) {
+            return false;
+        }
+        in.flip();
+        while (in.hasRemaining()) {
+            if (out.remaining() < Protocol.ACK_BYTES) {
+                return false;
+            }
+            onMessage(in.get(), now);
+        }
+        in.clear();
+        return true;
+    }
+
+    private void onMessage(byte message, long now) {
+        int pieces = engine.getPiecesPlaced();
+        boolean moved = false;
+        MoveEvent move = Protocol.move(message);
+        if (move != null) {
+            moved = apply(move, now);
+        } else if (message == Protocol.SOFT_DROP_ON || message == Protocol.SOFT_DROP_OFF) {
+            if (gravity != null) {
+                gravity.setSoftDrop(message == Protocol.SOFT_DROP_ON, now);
+            }
+        } else if (message == Protocol.NEW_GAME) {
+            engine.newGame();
+            if (gravity != null) {
+                gravity.start(now);
+            }
+        }
+        writeStatus(Protocol.ACK, moved, engine.getPiecesPlaced() != pieces);
+    }
+
+    // same bookkeeping as GameLoop.apply
+    private boolean apply(MoveEvent event, long now) {
+        ViewData before = engine.getBoard().getViewData();
+        engine.step(event);
+        boolean moved = !engine.getBoard().getViewData().equals(before);
+        if (gravity != null) {
+            if (event.eventType() == EventType.SPACE) {
+                gravity.onHardDrop(now);
+            } else if (moved) {
+                gravity.onPlayerMove(now);
+            }
+        }
+        return moved;
+    }
+
+    /** Runs gravity due at {@code now}, returns when it is due next. */
+    long updateGravity(long now) {
+        if (gravity == null) {
+            return Long.MAX_VALUE;
+        }
+        int pieces = engine.getPiecesPlaced();
+        boolean wasOver = engine.isGameOver();
+        long next = gravity.update(now);
+        boolean locked = engine.getPiecesPlaced() != pieces;
+        if ((locked || engine.isGameOver() != wasOver) && out.remaining() >= Protocol.ACK_BYTES) {
+            writeStatus(Protocol.GRAVITY, false, locked);
+        }
+        return next;
+    }
+
+    private void writeStatus(byte kind, boolean moved, boolean locked) {
+        int flags = (moved ? Protocol.MOVED : 0) | (locked ? Protocol.LOCKED : 0)
+                | (engine.isGameOver() ? Protocol.GAME_OVER : 0);
+        out.put(kind).put((byte) flags).putInt((int) Math.min(engine.getScore(), Integer.MAX_VALUE));
+    }
+
+    boolean hasOutput() {
+        return out.position() > 0;
+    }
+
+    /** Writes as much queued output as the socket takes, true when all of it went. */
+    boolean flush() throws IOException {
+        out.flip();
+        try {
+            channel.write(out);
+            return !out.hasRemaining();
+        } finally {
+            out.compact();
+        }
+    }
+
+    void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // already gone
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package org.depaul.server;
+
+import org.depaul.logic.events.EventType;
+import org.depaul.logic.util.LatencyHistogram;
+import org.depaul.logic.util.SplitMix64;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Loopback load test for {@link GameServer}: opens many sessions, has each
+ * one send a random move at a fixed rate and times every move until its ack
+ * comes back.
+ * <p>
+ * Latency runs from when a move was due, not from when it went out. A move
+ * that cannot go out on time, because the session has too many in flight or
+ * its socket is full, waits in line and is sent as soon as it can, so a
+ * server that falls behind shows up in the percentiles instead of in fewer
+ * samples. Moves still unanswered at the end, or that the generator never
+ * got round to sending, are recorded as waiting until then.
+ * <p>
+ * {@code java org.depaul.server.LoadGenerator [sessions] [seconds] [move interval ms] [server loops]}
+ * <p>
+ * The server runs in the same process and, on a machine with few cores,
+ * shares them with the generator, so latencies are an upper bound.
+ * <p>
+ * Prints acks per second, input-to-ack latency percentiles and how busy the
+ * server loops were, from which sessions per core follows: the number of
+ * sessions at this input rate one fully busy loop would carry.
+ */
+public final class LoadGenerator {
+
+    private static final byte[] MOVES = {
+            Protocol.encode(EventType.LEFT), Protocol.encode(EventType.RIGHT), Protocol.encode(EventType.Z),
+            Protocol.encode(EventType.DOWN), Protocol.encode(EventType.DOWN), Protocol.encode(EventType.SPACE)
+    };
+    // moves in flight per session before it stops sending and waits
+    private static final int MAX_PENDING = 64;
+    // moves a session can owe before new ones are dropped
+    private static final int MAX_OWED = 4096;
+
+    private final int sessions;
+    private final long intervalNanos;
+    // in-process server whose busy time is sampled, may be null
+    private final GameServer server;
+    private long serverBusyNanos;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    // acks before this are not counted, the JIT is still busy with the server
+    private long measureFrom;
+    private long acks;
+    private long skipped;
+
+    public LoadGenerator(int sessions, long intervalNanos, GameServer server) {
+        this.sessions = sessions;
+        this.intervalNanos = intervalNanos;
+        this.server = server;
+    }
+
+    /**
+     * Connects every session to {@code address}, then plays for {@code warmupNanos}
+     * without measuring and {@code durationNanos} measured.
+     */
+    public void run(InetSocketAddress address, long warmupNanos, long durationNanos) throws IOException {
+        try (Selector selector = Selector.open()) {
+            List<Client> clients = new ArrayList<>(sessions);
+            SplitMix64 random = new SplitMix64(sessions);
+            for (int i = 0; i < sessions; i++) {
+                SocketChannel channel = SocketChannel.open(address);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.configureBlocking(false);
+                Client client = new Client(channel, random.split());
+                channel.register(selector, SelectionKey.OP_READ, client);
+                clients.add(client);
+            }
+            long start = System.nanoTime();
+            // sends are spread evenly over the interval, so they come due in turn
+            for (int i = 0; i < sessions; i++) {
+                clients.get(i).nextSend = start + intervalNanos * i / sessions;
+            }
+            measureFrom = start + warmupNanos;
+            long end = measureFrom + durationNanos;
+            int turn = 0;
+            boolean measuring = false;
+            while (true) {
+                long now = System.nanoTime();
+                if (now - end >= 0) {
+                    break;
+                }
+                if (!measuring && now - measureFrom >= 0) {
+                    measuring = true;
+                    serverBusyNanos = server == null ? 0 : -server.getBusyNanos();
+                }
+                // at most one round of sends before reading again, even when behind
+                for (int sent = 0; sent < sessions && clients.get(turn).nextSend - now <= 0; sent++) {
+                    Client client = clients.get(turn);
+                    client.send(client.nextSend);
+                    client.nextSend += intervalNanos;
+                    turn = turn + 1 == sessions ? 0 : turn + 1;
+                }
+                long wait = Math.min(clients.get(turn).nextSend, end) - System.nanoTime();
+                if (wait > 0) {
+                    selector.select(Math.max(1, wait / 1_000_000));
+                } else {
+                    selector.selectNow();
+                }
+                long received = System.nanoTime();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    ((Client) key.attachment()).receive(received);
+                }
+            }
+            if (server != null) {
+                serverBusyNanos += server.getBusyNanos();
+            }
+            long finished = System.nanoTime();
+            for (Client client : clients) {
+                client.finish(finished);
+                client.channel.close();
+            }
+        }
+    }
+
+    /** CPU time the in-process server spent over the measured stretch. */
+    public long getServerBusyNanos() {
+        return serverBusyNanos;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getAcks() {
+        return acks;
+    }
+
+    /** Moves dropped because a session already owed {@value #MAX_OWED}, these are in no percentile. */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    private final class Client {
+
+        private final SocketChannel channel;
+        private final SplitMix64 random;
+        private final ByteBuffer in = ByteBuffer.allocate(4096);
+        private final ByteBuffer out = ByteBuffer.allocate(1);
+        // due times of the moves sent but not acked yet, acks come back in order
+        private final long[] pending = new long[MAX_PENDING];
+        private int head;
+        private int tail;
+        // due times of the moves that could not be sent yet
+        private final long[] owed = new long[MAX_OWED];
+        private int owedHead;
+        private int owedTail;
+        private boolean gameOver;
+        long nextSend;
+
+        Client(SocketChannel channel, SplitMix64 random) {
+            this.channel = channel;
+            this.random = random;
+        }
+
+        void send(long due) throws IOException {
+            if (owedTail - owedHead == MAX_OWED) {
+                skipped += due - measureFrom >= 0 ? 1 : 0;
+            } else {
+                owed[owedTail++ % MAX_OWED] = due;
+            }
+            sendOwed();
+        }
+
+        // oldest first, while the session has room in flight and the socket takes them
+        private void sendOwed() throws IOException {
+            while (owedHead != owedTail && tail - head < MAX_PENDING) {
+                out.clear();
+                out.put(gameOver ? Protocol.NEW_GAME : MOVES[random.nextInt(MOVES.length)]).flip();
+                if (channel.write(out) == 0) {
+                    // socket buffer full, the server is not keeping up
+                    return;
+                }
+                gameOver = false;
+                pending[tail++ % MAX_PENDING] = owed[owedHead++ % MAX_OWED];
+            }
+        }
+
+        // whatever is still unanswered waited at least until now
+        void finish(long now) {
+            for (; head != tail; head++) {
+                record(pending[head % MAX_PENDING], now);
+            }
+            for (; owedHead != owedTail; owedHead++) {
+                record(owed[owedHead % MAX_OWED], now);
+            }
+            // and so did the moves the generator itself was too far behind to get to
+            for (; nextSend - now < 0; nextSend += intervalNanos) {
+                record(nextSend, now);
+            }
+        }
+
+        private void record(long due, long now) {
+            if (due - measureFrom >= 0) {
+                latency.record(now - due);
+            }
+        }
+
+        void receive(long now) throws IOException {
+            if (channel.read(in) < 0) {
+                throw new IOException("server closed a session");
+            }
+            in.flip();
+            while (in.hasRemaining()) {
+                byte kind = in.get(in.position());
+                int size = kind == Protocol.HELLO ? Protocol.HELLO_BYTES : Protocol.ACK_BYTES;
+                if (in.remaining() < size) {
+                    break;
+                }
+                in.get();
+                if (kind == Protocol.HELLO) {
+                    in.getLong();
+                    continue;
+                }
+                int flags = in.get();
+                in.getInt();
+                gameOver = (flags & Protocol.GAME_OVER) != 0;
+                if (kind == Protocol.ACK) {
+                    long due = pending[head++ % MAX_PENDING];
+                    if (due - measureFrom >= 0) {
+                        latency.record(now - due);
+                        acks++;
+                    }
+                }
+            }
+            in.compact();
+            sendOwed();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int intervalMillis = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int loops = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        try (GameServer server = new GameServer(0, loops)) {
+            LoadGenerator generator = new LoadGenerator(sessions, intervalMillis * 1_000_000L, server);
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+            generator.run(address, 2_000_000_000L, seconds * 1_000_000_000L);
+            double elapsed = seconds;
+            double busy = generator.getServerBusyNanos() / 1e9;
+
+            LatencyHistogram latency = generator.getLatency();
+            System.out.printf("%d sessions on %d loops, one move every %d ms for %ds%n", sessions, loops, intervalMillis, seconds);
+            System.out.printf("acks/s %.0f, dropped %d%n", generator.getAcks() / elapsed, generator.getSkipped());
+            System.out.printf("input to ack us: p50 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+                    latency.getValueAtPercentile(50) / 1e3, latency.getValueAtPercentile(99) / 1e3,
+                    latency.getValueAtPercentile(99.9) / 1e3, latency.getMax() / 1e3);
+            System.out.printf("server loops busy %.1f%% of one core, about %.0f sessions per core%n",
+                    100 * busy / elapsed, busy > 0 ? sessions * elapsed / busy : 0);
+        }
+    }
+}
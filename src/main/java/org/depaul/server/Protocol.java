@@ -0,0 +1,58 @@
+package org.depaul.server;
+
+import org.depaul.logic.events.EventSource;
+import org.depaul.logic.events.EventType;
+import org.depaul.logic.events.MoveEvent;
+
+/**
+ * Wire format between {@link GameServer} and its clients.
+ * <pre>
+ * client -> server, one byte per message:
+ *   0..5        a MoveEvent, the EventType ordinal
+ *   SOFT_DROP_ON, SOFT_DROP_OFF, NEW_GAME
+ *
+ * server -> client, a kind byte then:
+ *   HELLO       long seed of the session's brick generator
+ *   ACK         flags byte, int score; one per client message, in order
+ *   GRAVITY     flags byte, int score; when gravity locked the brick
+ * </pre>
+ * Flags: {@link #MOVED}, {@link #LOCKED}, {@link #GAME_OVER}. Multi-byte
+ * values are big-endian.
+ */
+public final class Protocol {
+
+    public static final byte SOFT_DROP_ON = 0x10;
+    public static final byte SOFT_DROP_OFF = 0x11;
+    public static final byte NEW_GAME = 0x12;
+
+    public static final byte HELLO = 1;
+    public static final byte ACK = 2;
+    public static final byte GRAVITY = 3;
+
+    public static final int HELLO_BYTES = 1 + Long.BYTES;
+    public static final int ACK_BYTES = 2 + Integer.BYTES;
+
+    public static final int MOVED = 1;
+    public static final int LOCKED = 2;
+    public static final int GAME_OVER = 4;
+
+    private static final MoveEvent[] MOVES = new MoveEvent[EventType.values().length];
+
+    static {
+        for (EventType type : EventType.values()) {
+            MOVES[type.ordinal()] = new MoveEvent(type, EventSource.THREAD);
+        }
+    }
+
+    private Protocol() {
+    }
+
+    public static byte encode(EventType type) {
+        return (byte) type.ordinal();
+    }
+
+    /** The move a message byte stands for, null for anything else. */
+    static MoveEvent move(byte message) {
+        return message >= 0 && message < MOVES.length ? MOVES[message] : null;
+    }
+}
@@ -0,0 +1,264 @@
+package org.depaul.server;
+
+import org.depaul.logic.util.SplitMix64;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.IntToLongFunction;
+
+/**
+ * One selector thread serving many {@link GameSession}s: reads input, answers
+ * it, and runs every session's gravity off a min-heap of deadlines, sleeping
+ * in {@link Selector#select(long)} until the next one is due. Sessions never
+ * leave their loop, so nothing in a game is shared between threads.
+ */
+final class SessionLoop implements Runnable {
+
+    private final Selector selector;
+    private final IntToLongFunction levelCurve;
+    private final SplitMix64 seeds;
+    private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+
+    // binary min-heap of sessions by deadline, each session knows its index
+    private GameSession[] heap = new GameSession[64];
+    private int heapSize;
+
+    private volatile boolean running = true;
+    private volatile int sessions;
+    private volatile long busyNanos;
+
+    SessionLoop(IntToLongFunction levelCurve, long seed) throws IOException {
+        selector = Selector.open();
+        this.levelCurve = levelCurve;
+        seeds = new SplitMix64(seed);
+    }
+
+    /** Hands a freshly accepted connection to this loop, from any thread. */
+    void add(SocketChannel channel) {
+        accepted.add(channel);
+        selector.wakeup();
+    }
+
+    void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    int getSessionCount() {
+        return sessions;
+    }
+
+    /** Time spent handling input and gravity rather than waiting for it. */
+    long getBusyNanos() {
+        return busyNanos;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                long wait = heapSize == 0 ? Long.MAX_VALUE : heap[0].deadline - System.nanoTime();
+                if (wait <= 0) {
+                    selector.selectNow();
+                } else {
+                    // select takes milliseconds, round up so we never wake early and spin
+                    selector.select(wait == Long.MAX_VALUE ? 0 : Math.max(1, (wait + 999_999) / 1_000_000));
+                }
+                long start = System.nanoTime();
+                register(start);
+                handleSelected(start);
+                runGravity(System.nanoTime());
+                busyNanos += System.nanoTime() - start;
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            System.err.println("session loop stopped: " + e);
+        } finally {
+            if (selector.isOpen()) {
+                for (SelectionKey key : selector.keys()) {
+                    ((GameSession) key.attachment()).close();
+                }
+            }
+            SocketChannel channel;
+            while ((channel = accepted.poll()) != null) {
+                closeQuietly(channel);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // shutting down anyway
+            }
+        }
+    }
+
+    private void register(long now) {
+        SocketChannel channel;
+        while ((channel = accepted.poll()) != null) {
+            GameSession session = null;
+            try {
+                channel.configureBlocking(false);
+                session = new GameSession(channel, seeds.nextLong(), levelCurve, now);
+                session.key = channel.register(selector, SelectionKey.OP_READ, session);
+                sessions++;
+                flush(session);
+                schedule(session, session.updateGravity(now));
+            } catch (IOException e) {
+                // the client reset before we got to it, the others carry on
+                if (session != null && session.key != null) {
+                    close(session);
+                } else {
+                    closeQuietly(channel);
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // already broken
+        }
+    }
+
+    private void handleSelected(long now) {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            GameSession session = (GameSession) key.attachment();
+            try {
+                if (!key.isValid()) {
+                    continue;
+                }
+                if (key.isReadable() && !session.read(now)) {
+                    close(session);
+                    continue;
+                }
+                flush(session);
+                // input can move a lock deadline either way
+                schedule(session, session.updateGravity(now));
+            } catch (IOException e) {
+                close(session);
+            }
+        }
+    }
+
+    private void runGravity(long now) {
+        while (heapSize > 0 && heap[0].deadline - now <= 0) {
+            GameSession session = heap[0];
+            schedule(session, session.updateGravity(now));
+            if (session.hasOutput()) {
+                try {
+                    flush(session);
+                } catch (IOException e) {
+                    close(session);
+                }
+            }
+        }
+    }
+
+    private void flush(GameSession session) throws IOException {
+        boolean done = session.flush();
+        // only ask for OP_WRITE while the socket is backed up
+        int ops = done ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+        if (session.key.interestOps() != ops) {
+            session.key.interestOps(ops);
+        }
+    }
+
+    private void close(GameSession session) {
+        if (session.heapIndex >= 0) {
+            removeAt(session.heapIndex);
+        }
+        session.key.cancel();
+        session.close();
+        sessions--;
+    }
+
+    // --- deadline heap ---
+
+    private void schedule(GameSession session, long deadline) {
+        if (deadline == Long.MAX_VALUE) {
+            if (session.heapIndex >= 0) {
+                removeAt(session.heapIndex);
+            }
+            session.deadline = deadline;
+            return;
+        }
+        if (session.heapIndex < 0) {
+            if (heapSize == heap.length) {
+                heap = Arrays.copyOf(heap, heapSize * 2);
+            }
+            session.deadline = deadline;
+            session.heapIndex = heapSize;
+            heap[heapSize++] = session;
+            siftUp(session.heapIndex);
+        } else {
+            long old = session.deadline;
+            session.deadline = deadline;
+            if (deadline - old < 0) {
+                siftUp(session.heapIndex);
+            } else {
+                siftDown(session.heapIndex);
+            }
+        }
+    }
+
+    private void removeAt(int index) {
+        GameSession removed = heap[index];
+        removed.heapIndex = -1;
+        heapSize--;
+        if (index == heapSize) {
+            heap[index] = null;
+            return;
+        }
+        GameSession last = heap[heapSize];
+        heap[heapSize] = null;
+        heap[index] = last;
+        last.heapIndex = index;
+        siftDown(index);
+        siftUp(last.heapIndex);
+    }
+
+    private void siftUp(int index) {
+        GameSession session = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent].deadline - session.deadline <= 0) {
+                break;
+            }
+            move(heap[parent], index);
+            index = parent;
+        }
+        move(session, index);
+    }
+
+    private void siftDown(int index) {
+        GameSession session = heap[index];
+        int half = heapSize >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < heapSize && heap[child + 1].deadline - heap[child].deadline < 0) {
+                child++;
+            }
+            if (session.deadline - heap[child].deadline <= 0) {
+                break;
+            }
+            move(heap[child], index);
+            index = child;
+        }
+        move(session, index);
+    }
+
+    private void move(GameSession session, int index) {
+        heap[index] = session;
+        session.heapIndex = index;
+    }
+}
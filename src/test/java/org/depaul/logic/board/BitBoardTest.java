@@ -0,0 +1,163 @@
+package org.depaul.logic.board;
+
+import org.depaul.logic.bricks.SeededBrickGenerator;
+import org.depaul.logic.events.EventSource;
+import org.depaul.logic.events.EventType;
+import org.depaul.logic.events.MoveEvent;
+import org.depaul.logic.events.MoveEvents;
+import org.depaul.logic.util.Zobrist;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BitBoardTest {
+
+    BitBoard board;
+    static final int WIDTH = 10;
+    static final int HEIGHT = 10;
+
+    @Before
+    public void setup() {
+        board = new BitBoard(WIDTH, HEIGHT);
+        board.newGame();
+    }
+
+    @Test
+    public void moveBrickLeftEvent() {
+        final MoveEvent moveLeft = new MoveEvent(EventType.LEFT, EventSource.THREAD);
+        final int inital_x = board.getViewData().getxPosition();
+        final int inital_y = board.getViewData().getyPosition();
+
+        board.moveBrick(moveLeft);
+        assertEquals(inital_x-1, board.getViewData().getxPosition());
+        assertEquals(inital_y, board.getViewData().getyPosition());
+
+        board.moveBrick(moveLeft);
+        assertEquals(inital_x-2, board.getViewData().getxPosition());
+        assertEquals(inital_y, board.getViewData().getyPosition());
+
+        board.moveBrick(moveLeft);
+        assertEquals(inital_x-3, board.getViewData().getxPosition());
+        assertEquals(inital_y, board.getViewData().getyPosition());
+    }
+
+    @Test
+    public void moveBrickRightEvent() {
+        final MoveEvent moveRight = new MoveEvent(EventType.RIGHT, EventSource.THREAD);
+        final int inital_x = board.getViewData().getxPosition();
+        final int inital_y = board.getViewData().getyPosition();
+
+        board.moveBrick(moveRight);
+        assertEquals(inital_x+1, board.getViewData().getxPosition());
+        assertEquals(inital_y, board.getViewData().getyPosition());
+
+        board.moveBrick(moveRight);
+        assertEquals(inital_x+2, board.getViewData().getxPosition());
+        assertEquals(inital_y, board.getViewData().getyPosition());
+
+        board.moveBrick(moveRight);
+        assertEquals(inital_x+3, board.getViewData().getxPosition());
+        assertEquals(inital_y, board.getViewData().getyPosition());
+    }
+
+    @Test
+    public void moveBrickDownEvent() {
+        final MoveEvent moveDown = new MoveEvent(EventType.DOWN, EventSource.THREAD);
+        final int initial_x = board.getViewData().getxPosition();
+        final int initial_y = board.getViewData().getyPosition();
+
+        board.moveBrick(moveDown);
+        assertEquals(initial_y+1, board.getViewData().getyPosition());
+        assertEquals(initial_x, board.getViewData().getxPosition());
+
+        board.moveBrick(moveDown);
+        assertEquals(initial_y+2, board.getViewData().getyPosition());
+        assertEquals(initial_x, board.getViewData().getxPosition());
+
+        board.moveBrick(moveDown);
+        assertEquals(initial_y+3, board.getViewData().getyPosition());
+        assertEquals(initial_x, board.getViewData().getxPosition());
+    }
+
+    @Test
+    public void instantDropBrick() {
+        final MoveEvent spaceBarEvent = new MoveEvent(EventType.SPACE, EventSource.THREAD);
+        assertEquals(0, board.getViewData().getyPosition());
+
+        board.moveBrick(spaceBarEvent);
+        final int bottomValue = board.getViewData().getyPosition();
+        assertTrue(bottomValue >= 7); // depending on brick height
+
+        board.moveBrick(spaceBarEvent);
+        // already at bottom, should not change
+        assertEquals(bottomValue, board.getViewData().getyPosition());
+        assertFalse(board.moveBrick(new MoveEvent(EventType.DOWN, EventSource.THREAD)));
+    }
+
+    @Test
+    public void rotateBrick() {
+        final MoveEvent ZEvent = new MoveEvent(EventType.Z, EventSource.THREAD);
+        final MoveEvent rightEvent = new MoveEvent(EventType.RIGHT, EventSource.THREAD);
+
+        assertTrue(board.moveBrick(ZEvent));
+        for (int i = 0; i < 15; i++) {
+            board.moveBrick(rightEvent);
+        }
+        assertTrue(board.moveBrick(ZEvent));
+    }
+
+    @Test
+    public void mergeHardDroppedBrick() {
+        final MoveEvent spaceBarEvent = new MoveEvent(EventType.SPACE, EventSource.THREAD);
+        int[][] matrix = board.getBoardMatrix();
+        int pieces = 0;
+        // a hard dropped brick always rests on the floor row
+        board.moveBrick(spaceBarEvent);
+        board.mergeBrickToBackground();
+        for (int col = 0; col < HEIGHT; col++) {
+            if (matrix[WIDTH - 1][col] != 0) {
+                pieces++;
+            }
+        }
+        assertTrue(pieces > 0);
+        assertEquals(0, board.clearLines());
+    }
+
+    @Test
+    public void hashMatchesSimpleBoard() {
+        BitBoard bits = new BitBoard(20, 8, new SeededBrickGenerator(55L, SeededBrickGenerator.Mode.BAG, 1));
+        SimpleBoard simple = new SimpleBoard(20, 8, new SeededBrickGenerator(55L, SeededBrickGenerator.Mode.BAG, 1));
+        bits.newGame();
+        simple.newGame();
+        final Random random = new Random(89);
+        int totalCleared = 0;
+        for (int locks = 0; locks < 10_000; ) {
+            MoveEvent event = MoveEvents.ALL[random.nextInt(MoveEvents.ALL.length)];
+            boolean moved = bits.moveBrick(event);
+            assertEquals(moved, simple.moveBrick(event));
+            if (moved) {
+                continue;
+            }
+            locks++;
+            bits.mergeBrickToBackground();
+            simple.mergeBrickToBackground();
+            int cleared = bits.clearLines();
+            assertEquals(cleared, simple.clearLines());
+            totalCleared += cleared;
+            assertEquals(Zobrist.hash(bits.getBoardMatrix()), bits.getHash());
+            assertEquals(simple.getHash(), bits.getHash());
+            boolean gameOver = bits.createNewBrick();
+            assertEquals(gameOver, simple.createNewBrick());
+            if (gameOver) {
+                bits.newGame();
+                simple.newGame();
+            }
+        }
+        assertTrue(totalCleared > 20);
+    }
+}
@@ -1,16 +1,26 @@
 package org.depaul.logic.board;
 
+import org.depaul.logic.bricks.SeededBrickGenerator;
+import org.depaul.logic.data.ViewData;
 import org.depaul.logic.events.EventSource;
 import org.depaul.logic.events.EventType;
 import org.depaul.logic.events.MoveEvent;
+import org.depaul.logic.events.MoveEvents;
+import org.depaul.logic.util.Operations;
+import org.depaul.logic.util.Zobrist;
 import org.junit.Before;
 import org.junit.Test;
 
 
 import java.awt.*;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Field;
+import java.util.Random;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class SimpleBoardTest {
@@ -132,5 +142,201 @@ public class SimpleBoardTest {
         assertTrue(board.moveBrick(ZEvent));
     }
 
+    @Test
+    public void moveBrickDoesNotAllocate() {
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final Random random = new Random(42);
+        final MoveEvent[] events = new MoveEvent[1 << 16];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = MoveEvents.ALL[random.nextInt(MoveEvents.ALL.length)];
+        }
+
+        // leave some rubble behind so moves actually collide
+        for (int i = 0; i < 20; i++) {
+            playUntilLocked(events, i * 97);
+        }
+
+        final int moves = 1_000_000;
+        // one warm-up pass so class loading and compilation are out of the way
+        moveAll(events, moves);
+        long before = threads.getCurrentThreadAllocatedBytes();
+        long calibration = threads.getCurrentThreadAllocatedBytes() - before;
+        before = threads.getCurrentThreadAllocatedBytes();
+        moveAll(events, moves);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before - calibration;
+
+        assertEquals(0, allocated / moves);
+        assertTrue("allocated " + allocated + " bytes", allocated <= calibration);
+    }
+
+    private void moveAll(MoveEvent[] events, int moves) {
+        for (int i = 0; i < moves; i++) {
+            board.moveBrick(events[i & (events.length - 1)]);
+        }
+    }
+
+    private void playUntilLocked(MoveEvent[] events, int start) {
+        for (int i = start; ; i++) {
+            if (!board.moveBrick(events[i & (events.length - 1)])) {
+                board.mergeBrickToBackground();
+                board.clearLines();
+                if (board.createNewBrick()) {
+                    board.newGame();
+                }
+                return;
+            }
+        }
+    }
+
+    @Test
+    public void clearLinesCompactsAllFullRows() {
+        int[][] matrix = new int[WIDTH][HEIGHT];
+        for (int row : new int[]{3, 6, 7, 9}) {
+            java.util.Arrays.fill(matrix[row], 2);
+        }
+        matrix[8][4] = 5;
+        matrix[5][0] = 1;
+        board.loadBoardMatrix(matrix);
+
+        assertEquals(4, board.clearLines());
+        int[][] result = board.getBoardMatrix();
+        assertEquals(5, result[9][4]);
+        assertEquals(1, result[8][0]);
+        for (int row = 0; row < 8; row++) {
+            assertArrayEquals(new int[HEIGHT], result[row]);
+        }
+        assertEquals(0, board.clearLines());
+    }
 
-}
\ No newline at end of file
+    @Test
+    public void clearLinesMatchesFullScan() {
+        board = new SimpleBoard(20, 8, new SeededBrickGenerator(3L, SeededBrickGenerator.Mode.BAG, 1));
+        board.newGame();
+        final Random random = new Random(5);
+        int totalCleared = 0;
+        for (int locks = 0; locks < 2000; ) {
+            if (board.moveBrick(MoveEvents.ALL[random.nextInt(MoveEvents.ALL.length)])) {
+                continue;
+            }
+            locks++;
+            board.mergeBrickToBackground();
+            int[][] expected = copy(board.getBoardMatrix());
+            int expectedCleared = clearByFullScan(expected);
+            int cleared = board.clearLines();
+            totalCleared += cleared;
+            assertEquals(expectedCleared, cleared);
+            for (int row = 0; row < expected.length; row++) {
+                assertArrayEquals(expected[row], board.getBoardMatrix()[row]);
+            }
+            if (board.createNewBrick()) {
+                board.newGame();
+            }
+        }
+        assertTrue(totalCleared > 0);
+    }
+
+    @Test
+    public void hardDropMatchesStepwiseDrop() {
+        board = new SimpleBoard(22, 10, new SeededBrickGenerator(8L, SeededBrickGenerator.Mode.UNIFORM, 1));
+        board.newGame();
+        final Random random = new Random(13);
+        for (int i = 0; i < 200_000; i++) {
+            MoveEvent event = MoveEvents.ALL[random.nextInt(MoveEvents.ALL.length)];
+            int expectedY = -1;
+            if (event.eventType() == EventType.SPACE) {
+                int[][] brick = board.getViewData().getBrickData();
+                int x = board.getViewData().getxPosition();
+                expectedY = board.getViewData().getyPosition();
+                while (!Operations.intersectMatrix(board.getBoardMatrix(), brick, x, expectedY + 1)) {
+                    expectedY++;
+                }
+            }
+            if (!board.moveBrick(event)) {
+                board.mergeBrickToBackground();
+                board.clearLines();
+                boolean gameOver = board.createNewBrick();
+                assertEquals(Operations.intersectMatrix(board.getBoardMatrix(), board.getViewData().getBrickData(), 3, 0), gameOver);
+                if (gameOver) {
+                    board.newGame();
+                }
+            } else if (expectedY >= 0) {
+                assertEquals(expectedY, board.getViewData().getyPosition());
+            }
+        }
+    }
+
+    @Test
+    public void hashMatchesFullHashOverLongGames() {
+        board = new SimpleBoard(20, 8, new SeededBrickGenerator(21L, SeededBrickGenerator.Mode.BAG, 1));
+        board.newGame();
+        assertEquals(0, board.getHash());
+        final Random random = new Random(34);
+        int totalCleared = 0;
+        int games = 0;
+        for (int locks = 0; locks < 20_000; ) {
+            if (board.moveBrick(MoveEvents.ALL[random.nextInt(MoveEvents.ALL.length)])) {
+                continue;
+            }
+            locks++;
+            board.mergeBrickToBackground();
+            assertEquals(Zobrist.hash(board.getBoardMatrix()), board.getHash());
+            totalCleared += board.clearLines();
+            assertEquals(Zobrist.hash(board.getBoardMatrix()), board.getHash());
+            if (board.createNewBrick()) {
+                games++;
+                board.newGame();
+                assertEquals(0, board.getHash());
+            }
+        }
+        assertTrue(totalCleared > 30);
+        assertTrue(games > 10);
+
+        int[][] matrix = copy(board.getBoardMatrix());
+        matrix[19][0] = matrix[19][0] == 0 ? 3 : 0;
+        long before = board.getHash();
+        board.loadBoardMatrix(matrix);
+        assertEquals(Zobrist.hash(matrix), board.getHash());
+        assertTrue(before != board.getHash());
+    }
+
+    private static int[][] copy(int[][] matrix) {
+        int[][] copy = new int[matrix.length][];
+        for (int row = 0; row < matrix.length; row++) {
+            copy[row] = matrix[row].clone();
+        }
+        return copy;
+    }
+
+    @Test
+    public void viewDataIsReusedUntilTheBrickMoves() {
+        ViewData first = board.getViewData();
+        assertSame(first, board.getViewData());
+
+        board.moveBrick(new MoveEvent(EventType.DOWN, EventSource.THREAD));
+        ViewData moved = board.getViewData();
+        assertNotSame(first, moved);
+        assertEquals(first.getyPosition() + 1, moved.getyPosition());
+        // the snapshot still shows where the brick was
+        assertEquals(0, first.getyPosition());
+        assertSame(first.brickShape(), moved.brickShape());
+    }
+
+    // the original row-by-row algorithm
+    private static int clearByFullScan(int[][] matrix) {
+        int cleared = 0;
+        for (int row = 0; row < matrix.length; row++) {
+            boolean full = true;
+            for (int cell : matrix[row]) {
+                full &= cell != 0;
+            }
+            if (full) {
+                cleared++;
+                for (int i = row; i > 0; i--) {
+                    matrix[i] = matrix[i - 1];
+                }
+                matrix[0] = new int[matrix[row].length];
+            }
+        }
+        return cleared;
+    }
+}
@@ -0,0 +1,91 @@
+package org.depaul.logic.bot;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EvaluationCacheTest {
+
+    @Test
+    public void sizedInMegabytes() {
+        assertEquals(1 << 16, new EvaluationCache(1).getCapacity());
+        // rounded down to a power of two
+        assertEquals(1 << 18, new EvaluationCache(5).getCapacity());
+    }
+
+    @Test
+    public void storesAndCountsLookups() {
+        EvaluationCache cache = new EvaluationCache(1);
+        long key = EvaluationCache.key(0x1234_5678_9ABC_DEF0L, 5, 2);
+        assertTrue(Double.isNaN(cache.get(key, 0)));
+        cache.put(key, 1, -3.25);
+        assertEquals(-3.25, cache.get(key, 1), 0);
+        // too shallow for a depth 2 lookup
+        assertTrue(Double.isNaN(cache.get(key, 2)));
+        assertTrue(Double.isNaN(cache.get(EvaluationCache.key(0x1234_5678_9ABC_DEF0L, 2, 5), 0)));
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.getMisses());
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    public void fullBucketsEvictOlderGenerationsFirst() {
+        EvaluationCache cache = new EvaluationCache(1);
+        // same bucket, different keys
+        long[] keys = new long[5];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = 0x0000_0007_0000_0000L | (long) (i + 1) << 12;
+        }
+        cache.put(keys[0], 3, 0);
+        cache.newGeneration();
+        for (int i = 1; i < 4; i++) {
+            cache.put(keys[i], 1, i);
+        }
+        cache.put(keys[4], 1, 4);
+        assertEquals(1, cache.getEvictions());
+        // the deeper entry lost out to its age
+        assertTrue(Double.isNaN(cache.get(keys[0], 0)));
+        for (int i = 1; i < 5; i++) {
+            assertEquals(i, cache.get(keys[i], 0), 0);
+        }
+    }
+
+    @Test
+    public void racingWritersNeverReturnAnotherKeysScore() throws InterruptedException {
+        EvaluationCache cache = new EvaluationCache(1);
+        int threads = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger wrong = new AtomicInteger();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                // few keys over few buckets so writers keep colliding; a key's score is the key itself
+                for (int i = 0; i < 500_000; i++) {
+                    long key = EvaluationCache.key((i * 31L + seed) % 4096, 1, 2);
+                    double score = cache.get(key, 0);
+                    if (!Double.isNaN(score) && score != key) {
+                        wrong.incrementAndGet();
+                    }
+                    cache.put(key, 1, key);
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(0, wrong.get());
+        assertTrue(cache.getHits() > 0);
+    }
+}
@@ -0,0 +1,170 @@
+package org.depaul.logic.bot;
+
+import org.depaul.logic.board.BoardListener;
+import org.depaul.logic.board.SimpleBoard;
+import org.depaul.logic.bricks.BrickShape;
+import org.depaul.logic.bricks.SeededBrickGenerator;
+import org.depaul.logic.data.ViewData;
+import org.depaul.logic.engine.GameEngine;
+import org.depaul.logic.engine.GravityScheduler;
+import org.depaul.logic.events.EventType;
+import org.depaul.logic.events.MoveEvent;
+import org.depaul.logic.sim.BatchSimulator;
+import org.depaul.logic.sim.SimulationSummary;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PlacementSearchTest {
+
+    private static final int I = 0;
+    private static final int O = 3;
+
+    @Test
+    public void iBrickFillsTheWell() {
+        int[][] board = new int[25][10];
+        for (int row = 21; row < 25; row++) {
+            for (int col = 0; col < 9; col++) {
+                board[row][col] = 5;
+            }
+        }
+        PlacementSearch search = new PlacementSearch(25, 10, PlacementHeuristic.DEFAULT);
+        assertTrue(search.search(board, I, 0, PlacementSearch.SPAWN_X, PlacementSearch.SPAWN_Y, O));
+        assertEquals(21, search.getBestY());
+        // vertical and in the last column, whichever vertical I is used
+        assertEquals(1, search.getBestRotation());
+    }
+
+    @Test
+    public void everyPlanEndsWhereTheSearchSaid() {
+        GameEngine engine = new GameEngine(new SimpleBoard(25, 10, new SeededBrickGenerator(17, SeededBrickGenerator.Mode.UNIFORM, 1)));
+        PlacementSearch search = new PlacementSearch(25, 10, PlacementHeuristic.DEFAULT);
+        MoveEvent[] plan = new MoveEvent[search.maxMoves()];
+        int tucks = 0;
+        for (int piece = 0; piece < 400 && !engine.isGameOver(); piece++) {
+            ViewData view = engine.getBoard().getViewData();
+            BrickShape shape = view.brickShape();
+            assertTrue(search.search(engine.getBoard().getBoardMatrix(), shape.getColour() - 1, shape.getRotation(),
+                    view.getxPosition(), view.getyPosition(), view.nextBrickShape().getColour() - 1));
+            int moves = search.writeMoves(plan);
+            for (int i = 0; i < moves - 1; i++) {
+                tucks += plan[i].eventType() == EventType.DOWN ? 1 : 0;
+                assertFalse(engine.step(plan[i]));
+            }
+            ViewData placed = engine.getBoard().getViewData();
+            assertEquals(search.getBestX(), placed.getxPosition());
+            assertEquals(search.getBestY(), placed.getyPosition());
+            assertEquals(search.getBestRotation(), placed.brickShape().getRotation());
+            assertTrue(engine.step(plan[moves - 1]));
+        }
+        assertFalse(engine.isGameOver());
+        assertTrue(engine.getLinesCleared() > 100);
+        assertTrue("no tucks in 400 pieces", tucks > 0);
+    }
+
+    @Test
+    public void autoPlayerReachesItsPlacementsUnderGravity() {
+        long ms = 1_000_000L;
+        GameEngine engine = new GameEngine(new SimpleBoard(25, 10, new SeededBrickGenerator(41, SeededBrickGenerator.Mode.BAG, 1)));
+        AutoPlayer player = new AutoPlayer(25, 10);
+        // a row every 60 ms against a move every 40 ms, so bricks fall mid-plan all the time
+        GravityScheduler gravity = new GravityScheduler(engine, level -> 60 * ms, 500 * ms, 20);
+        int[] merged = new int[1];
+        engine.getBoard().setBoardListener(new BoardListener() {
+            @Override
+            public void onBrickMerged(BrickShape shape, int x, int y) {
+                assertEquals(player.getTargetRotation(), shape.getRotation());
+                assertEquals(player.getTargetX(), x);
+                assertEquals(player.getTargetY(), y);
+                merged[0]++;
+            }
+        });
+        gravity.start(0);
+        for (long now = 0; engine.getPiecesPlaced() < 300 && !engine.isGameOver(); now += ms) {
+            if (now % (40 * ms) == 0) {
+                // what GameLoop does with an autoplay move
+                MoveEvent move = player.nextMove(engine);
+                ViewData before = engine.getBoard().getViewData();
+                engine.step(move);
+                if (move.eventType() == EventType.SPACE) {
+                    gravity.onHardDrop(now);
+                } else if (!engine.getBoard().getViewData().equals(before)) {
+                    gravity.onPlayerMove(now);
+                }
+            }
+            gravity.update(now);
+        }
+        assertFalse(engine.isGameOver());
+        assertEquals(300, merged[0]);
+        assertTrue(player.getReplans() > 0);
+    }
+
+    @Test
+    public void parallelSearchAgreesWithSequential() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            PlacementSearch sequential = new PlacementSearch(25, 10, PlacementHeuristic.DEFAULT);
+            PlacementSearch parallel = new PlacementSearch(25, 10, PlacementHeuristic.DEFAULT, pool);
+            GameEngine engine = new GameEngine(new SimpleBoard(25, 10, new SeededBrickGenerator(3, SeededBrickGenerator.Mode.BAG, 1)));
+            AutoPlayer player = new AutoPlayer(sequential, true);
+            for (int move = 0; move < 2000 && !engine.isGameOver(); move++) {
+                ViewData view = engine.getBoard().getViewData();
+                int brick = view.brickShape().getColour() - 1;
+                int next = view.nextBrickShape().getColour() - 1;
+                int[][] board = engine.getBoard().getBoardMatrix();
+                parallel.search(board, brick, view.brickShape().getRotation(), view.getxPosition(), view.getyPosition(), next);
+                sequential.search(board, brick, view.brickShape().getRotation(), view.getxPosition(), view.getyPosition(), next);
+                assertEquals(sequential.getBestScore(), parallel.getBestScore(), 0);
+                assertEquals(sequential.getBestX(), parallel.getBestX());
+                assertEquals(sequential.getBestY(), parallel.getBestY());
+                engine.step(player.nextMove(engine));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void cachedSearchAgreesWithUncached() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            PlacementSearch plain = new PlacementSearch(25, 10, PlacementHeuristic.DEFAULT);
+            PlacementSearch cached = new PlacementSearch(25, 10, PlacementHeuristic.DEFAULT);
+            PlacementSearch parallel = new PlacementSearch(25, 10, PlacementHeuristic.DEFAULT, pool);
+            EvaluationCache cache = new EvaluationCache(1);
+            cached.setCache(cache);
+            parallel.setCache(cache);
+            GameEngine engine = new GameEngine(new SimpleBoard(25, 10, new SeededBrickGenerator(29, SeededBrickGenerator.Mode.BAG, 1)));
+            AutoPlayer player = new AutoPlayer(cached, true);
+            for (int move = 0; move < 3000 && !engine.isGameOver(); move++) {
+                ViewData view = engine.getBoard().getViewData();
+                int brick = view.brickShape().getColour() - 1;
+                int next = view.nextBrickShape().getColour() - 1;
+                int[][] board = engine.getBoard().getBoardMatrix();
+                int rotation = view.brickShape().getRotation();
+                plain.search(board, brick, rotation, view.getxPosition(), view.getyPosition(), next);
+                parallel.search(board, brick, rotation, view.getxPosition(), view.getyPosition(), next);
+                assertEquals(plain.getBestScore(), parallel.getBestScore(), 0);
+                assertEquals(plain.getBestX(), parallel.getBestX());
+                assertEquals(plain.getBestY(), parallel.getBestY());
+                assertEquals(plain.getBestRotation(), parallel.getBestRotation());
+                engine.step(player.nextMove(engine));
+            }
+            assertTrue(cache.getHits() > 0);
+            assertTrue(cache.getMisses() > 0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void autoPlayerOutlastsTheBatch() {
+        BatchSimulator simulator = new BatchSimulator(25, 10, 300, seed -> new AutoPlayer(25, 10), ForkJoinPool.commonPool());
+        SimulationSummary summary = simulator.run(4, 1);
+        assertEquals(300, summary.getPiecesPlaced().getMin());
+    }
+}
@@ -20,4 +20,27 @@ public class IBrickTest {
         brick.getBrickMatrixList().remove(0);
         Assert.assertEquals(2, brick.getBrickMatrixList().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testShapeTableIsShared() {
+        Brick brick = new IBrick();
+        Assert.assertEquals(2, brick.getRotationCount());
+        Assert.assertSame(brick.getShape(1), new IBrick().getShape(1));
+        brick.getShape(0).toMatrix()[1][0] = 0;
+        Assert.assertEquals(1, brick.getShape(0).getCell(1, 0));
+    }
+
+    @Test
+    public void testShapeProfile() {
+        BrickShape vertical = new IBrick().getShape(1);
+        Assert.assertEquals(4, vertical.getCellCount());
+        Assert.assertEquals(0b0010, vertical.getRowMask(2));
+        Assert.assertEquals(1, vertical.getMinCol());
+        Assert.assertEquals(1, vertical.getMaxCol());
+        Assert.assertEquals(3, vertical.getBottom(1));
+        Assert.assertEquals(-1, vertical.getBottom(0));
+        Assert.assertEquals(1, vertical.getLeftmost(0));
+        Assert.assertEquals(1, vertical.getRightmost(3));
+        Assert.assertEquals(1, vertical.getColour());
+    }
+}
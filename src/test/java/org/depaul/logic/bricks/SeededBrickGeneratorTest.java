@@ -0,0 +1,58 @@
+package org.depaul.logic.bricks;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SeededBrickGeneratorTest {
+
+    @Test
+    public void sameSeedSameSequence() {
+        SeededBrickGenerator a = new SeededBrickGenerator(5L, SeededBrickGenerator.Mode.UNIFORM, 3);
+        SeededBrickGenerator b = new SeededBrickGenerator(5L, SeededBrickGenerator.Mode.UNIFORM, 3);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertSame(a.getBrick(), b.getBrick());
+        }
+    }
+
+    @Test
+    public void bagDealsEveryBrickOncePerSeven() {
+        SeededBrickGenerator generator = new SeededBrickGenerator(9L, SeededBrickGenerator.Mode.BAG, 1);
+        for (int bag = 0; bag < 100; bag++) {
+            boolean[] seen = new boolean[Bricks.count()];
+            for (int i = 0; i < Bricks.count(); i++) {
+                int id = Bricks.idOf(generator.getBrick());
+                Assert.assertFalse(seen[id]);
+                seen[id] = true;
+            }
+        }
+    }
+
+    @Test
+    public void previewMatchesUpcomingBricks() {
+        SeededBrickGenerator generator = new SeededBrickGenerator(1L, SeededBrickGenerator.Mode.BAG, 5);
+        for (int round = 0; round < 50; round++) {
+            int[] expected = new int[generator.getPreviewDepth()];
+            for (int i = 0; i < expected.length; i++) {
+                expected[i] = generator.peekId(i);
+            }
+            Assert.assertSame(Bricks.get(expected[0]), generator.getNextBrick());
+            for (int id : expected) {
+                Assert.assertEquals(id, Bricks.idOf(generator.getBrick()));
+            }
+        }
+    }
+
+    @Test
+    public void splitStreamsDiffer() {
+        SeededBrickGenerator parent = new SeededBrickGenerator(3L, SeededBrickGenerator.Mode.UNIFORM, 1);
+        SeededBrickGenerator child = parent.split();
+        // only shows the two are not in lockstep, not that they are independent
+        int same = 0;
+        for (int i = 0; i < 700; i++) {
+            if (parent.getBrick() == child.getBrick()) {
+                same++;
+            }
+        }
+        Assert.assertTrue(same < 200);
+    }
+}
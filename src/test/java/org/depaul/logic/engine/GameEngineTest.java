@@ -0,0 +1,83 @@
+package org.depaul.logic.engine;
+
+import org.depaul.logic.board.SimpleBoard;
+import org.depaul.logic.events.EventSource;
+import org.depaul.logic.events.EventType;
+import org.depaul.logic.events.MoveEvent;
+import org.depaul.logic.events.MoveEvents;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GameEngineTest {
+
+    private static final MoveEvent DOWN = new MoveEvent(EventType.DOWN, EventSource.THREAD);
+    private static final MoveEvent SPACE = new MoveEvent(EventType.SPACE, EventSource.THREAD);
+
+    GameEngine engine;
+    long listenedPoints;
+    int listenedLocks;
+    boolean listenedGameOver;
+    long scoreAtGameOver;
+
+    @Before
+    public void setup() {
+        engine = new GameEngine(new SimpleBoard(25, 10));
+        engine.addListener(new GameEventListener() {
+            @Override
+            public void onBrickLocked(int linesCleared, int points) {
+                listenedPoints += points;
+                listenedLocks++;
+            }
+
+            @Override
+            public void onGameOver() {
+                listenedGameOver = true;
+                scoreAtGameOver = engine.getScore();
+            }
+        });
+    }
+
+    @Test
+    public void hardDropThenDownLocksBrick() {
+        assertFalse(engine.step(SPACE));
+        assertTrue(engine.step(DOWN));
+        assertEquals(1, engine.getPiecesPlaced());
+        assertEquals(40, engine.getLastPoints());
+        assertEquals(40, engine.getScore());
+    }
+
+    @Test
+    public void gameOverSeesTheLastLocksPoints() {
+        while (!engine.isGameOver()) {
+            engine.step(DOWN);
+        }
+        assertTrue(engine.getLastPoints() > 0);
+        assertEquals(engine.getScore(), scoreAtGameOver);
+    }
+
+    @Test
+    public void playsToGameOverWithoutFx() {
+        Random random = new Random(7);
+        while (!engine.isGameOver()) {
+            engine.step(MoveEvents.ALL[random.nextInt(MoveEvents.ALL.length)]);
+        }
+
+        assertTrue(listenedGameOver);
+        assertEquals(listenedLocks, engine.getPiecesPlaced());
+        assertEquals(listenedPoints, engine.getScore());
+        assertTrue(engine.getScore() >= 40L * engine.getPiecesPlaced());
+        // a finished game ignores further input
+        assertFalse(engine.step(DOWN));
+
+        engine.newGame();
+        assertFalse(engine.isGameOver());
+        assertEquals(0, engine.getScore());
+        assertEquals(0, engine.getPiecesPlaced());
+    }
+}
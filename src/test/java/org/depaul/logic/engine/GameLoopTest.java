@@ -0,0 +1,127 @@
+package org.depaul.logic.engine;
+
+import org.depaul.logic.board.SimpleBoard;
+import org.depaul.logic.bricks.SeededBrickGenerator;
+import org.depaul.logic.data.Frame;
+import org.depaul.logic.events.EventSource;
+import org.depaul.logic.events.EventType;
+import org.depaul.logic.events.MoveEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GameLoopTest {
+
+    private static final MoveEvent DOWN = new MoveEvent(EventType.DOWN, EventSource.THREAD);
+    private static final MoveEvent SPACE = new MoveEvent(EventType.SPACE, EventSource.THREAD);
+    private static final MoveEvent LEFT = new MoveEvent(EventType.LEFT, EventSource.THREAD);
+
+    GameLoop loop;
+
+    @Before
+    public void setup() {
+        loop = new GameLoop(new GameEngine(new SimpleBoard(25, 10, new SeededBrickGenerator(7, SeededBrickGenerator.Mode.BAG, 1))));
+        loop.start();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        loop.stop();
+    }
+
+    @Test
+    public void movesFromManyThreadsAreAllApplied() throws InterruptedException {
+        // only DOWN moves, so the outcome does not depend on how the threads interleave
+        GameEngine expected = new GameEngine(new SimpleBoard(25, 10, new SeededBrickGenerator(7, SeededBrickGenerator.Mode.BAG, 1)));
+        for (int n = 0; n < 4 * 150; n++) {
+            expected.step(DOWN);
+        }
+
+        Thread[] producers = new Thread[4];
+        for (int i = 0; i < producers.length; i++) {
+            producers[i] = new Thread(() -> {
+                for (int n = 0; n < 150; n++) {
+                    loop.submit(DOWN);
+                }
+            });
+            producers[i].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        Frame frame = loop.getFrame();
+        while (!matches(frame, expected) && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+            frame = loop.getFrame();
+        }
+        assertArrayEquals(expected.getBoard().getBoardMatrix(), frame.boardMatrix());
+        assertEquals(expected.getBoard().getViewData(), frame.brick());
+        assertEquals(expected.getScore(), loop.getEngine().getScore());
+    }
+
+    private static boolean matches(Frame frame, GameEngine expected) {
+        return frame.brick().equals(expected.getBoard().getViewData())
+                && Arrays.deepEquals(frame.boardMatrix(), expected.getBoard().getBoardMatrix());
+    }
+
+    @Test
+    public void boardCopyChangesOnlyOnLock() throws InterruptedException {
+        Frame first = loop.getFrame();
+        loop.submit(LEFT);
+        Frame moved = awaitSequence(first.sequence() + 1);
+        assertSame(first.boardMatrix(), moved.boardMatrix());
+        assertEquals(first.boardVersion(), moved.boardVersion());
+        assertEquals(first.brick().getxPosition() - 1, moved.brick().getxPosition());
+
+        loop.submit(SPACE);
+        loop.submit(DOWN);
+        Frame locked = awaitPieces(1);
+        assertNotSame(first.boardMatrix(), locked.boardMatrix());
+        assertTrue(locked.boardVersion() > first.boardVersion());
+        // untouched by the game after publishing
+        int[][] snapshot = locked.boardMatrix();
+        int[][] copy = new int[snapshot.length][];
+        for (int row = 0; row < snapshot.length; row++) {
+            copy[row] = snapshot[row].clone();
+        }
+        loop.submit(SPACE);
+        loop.submit(DOWN);
+        awaitPieces(2);
+        assertArrayEquals(copy, snapshot);
+    }
+
+    private Frame awaitPieces(int pieces) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            Frame frame = loop.getFrame();
+            // one new board copy per lock
+            if (frame.boardVersion() > pieces) {
+                return frame;
+            }
+            Thread.sleep(1);
+        }
+        throw new AssertionError("timed out waiting for " + pieces + " pieces");
+    }
+
+    private Frame awaitSequence(long sequence) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            Frame frame = loop.getFrame();
+            if (frame.sequence() >= sequence) {
+                return frame;
+            }
+            Thread.sleep(1);
+        }
+        throw new AssertionError("timed out waiting for frame " + sequence);
+    }
+}
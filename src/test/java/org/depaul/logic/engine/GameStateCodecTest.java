@@ -0,0 +1,101 @@
+package org.depaul.logic.engine;
+
+import org.depaul.logic.board.SimpleBoard;
+import org.depaul.logic.bricks.SeededBrickGenerator;
+import org.depaul.logic.sim.RandomMovePolicy;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GameStateCodecTest {
+
+    private static GameEngine newEngine(long seed, SeededBrickGenerator.Mode mode) {
+        return new GameEngine(new SimpleBoard(25, 10, new SeededBrickGenerator(seed, mode, 3)));
+    }
+
+    private static void play(GameEngine engine, RandomMovePolicy policy, int moves) {
+        for (int i = 0; i < moves && !engine.isGameOver(); i++) {
+            engine.step(policy.nextMove(engine));
+            engine.fall();
+        }
+    }
+
+    @Test
+    public void restoredGameContinuesIdentically() {
+        for (SeededBrickGenerator.Mode mode : SeededBrickGenerator.Mode.values()) {
+            GameEngine original = newEngine(5, mode);
+            play(original, new RandomMovePolicy(1), 150);
+
+            ByteBuffer buffer = ByteBuffer.allocate(GameStateCodec.maxBytes(25, 10));
+            GameStateCodec.write(original, buffer);
+            assertTrue("saved " + buffer.position() + " bytes", buffer.position() < 170);
+
+            // a different game in progress gets overwritten completely
+            GameEngine restored = newEngine(99, mode);
+            play(restored, new RandomMovePolicy(2), 40);
+            GameStateCodec.read(buffer.flip(), restored);
+            assertEquals(0, buffer.remaining());
+
+            for (int round = 0; round < 20; round++) {
+                assertArrayEquals(original.getBoard().getBoardMatrix(), restored.getBoard().getBoardMatrix());
+                assertEquals(original.getBoard().getViewData(), restored.getBoard().getViewData());
+                assertEquals(original.getScore(), restored.getScore());
+                assertEquals(original.getLinesCleared(), restored.getLinesCleared());
+                assertEquals(original.getPiecesPlaced(), restored.getPiecesPlaced());
+                assertEquals(original.isGameOver(), restored.isGameOver());
+                play(original, new RandomMovePolicy(round), 30);
+                play(restored, new RandomMovePolicy(round), 30);
+            }
+        }
+    }
+
+    @Test
+    public void checkpointingDoesNotAllocate() {
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        GameEngine engine = newEngine(5, SeededBrickGenerator.Mode.BAG);
+        GameEngine copy = newEngine(6, SeededBrickGenerator.Mode.BAG);
+        play(engine, new RandomMovePolicy(1), 100);
+        ByteBuffer buffer = ByteBuffer.allocate(GameStateCodec.maxBytes(25, 10));
+
+        final int rounds = 100_000;
+        checkpoint(engine, copy, buffer, rounds);
+        long before = threads.getCurrentThreadAllocatedBytes();
+        long calibration = threads.getCurrentThreadAllocatedBytes() - before;
+        before = threads.getCurrentThreadAllocatedBytes();
+        checkpoint(engine, copy, buffer, rounds);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before - calibration;
+
+        // a stray object from the JIT at most, nothing per checkpoint
+        assertEquals(0, allocated / rounds);
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    private static void checkpoint(GameEngine engine, GameEngine copy, ByteBuffer buffer, int rounds) {
+        for (int i = 0; i < rounds; i++) {
+            buffer.clear();
+            GameStateCodec.write(engine, buffer);
+            GameStateCodec.read(buffer.flip(), copy);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void boardSizeMustMatch() {
+        ByteBuffer buffer = ByteBuffer.allocate(GameStateCodec.maxBytes(25, 10));
+        GameStateCodec.write(newEngine(1, SeededBrickGenerator.Mode.BAG), buffer);
+        GameEngine other = new GameEngine(new SimpleBoard(20, 10, new SeededBrickGenerator(1, SeededBrickGenerator.Mode.BAG, 3)));
+        GameStateCodec.read(buffer.flip(), other);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedSaveIsRejected() {
+        ByteBuffer buffer = ByteBuffer.allocate(GameStateCodec.maxBytes(25, 10));
+        GameStateCodec.write(newEngine(1, SeededBrickGenerator.Mode.BAG), buffer);
+        buffer.flip().limit(buffer.limit() - 4);
+        GameStateCodec.read(buffer, newEngine(1, SeededBrickGenerator.Mode.BAG));
+    }
+}
@@ -0,0 +1,144 @@
+package org.depaul.logic.engine;
+
+import org.depaul.logic.board.SimpleBoard;
+import org.depaul.logic.bricks.SeededBrickGenerator;
+import org.depaul.logic.events.EventSource;
+import org.depaul.logic.events.EventType;
+import org.depaul.logic.events.MoveEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GravitySchedulerTest {
+
+    private static final long MS = 1_000_000L;
+    private static final long FALL = 100 * MS;
+    private static final long LOCK_DELAY = 300 * MS;
+    // nanoTime can be anywhere, including close to overflow
+    private static final long T0 = Long.MAX_VALUE - 1_000_000 * MS;
+
+    GameEngine engine;
+    GravityScheduler gravity;
+
+    @Before
+    public void setup() {
+        engine = new GameEngine(new SimpleBoard(25, 10, new SeededBrickGenerator(3, SeededBrickGenerator.Mode.BAG, 1)));
+        gravity = new GravityScheduler(engine, level -> FALL, LOCK_DELAY, 10);
+        gravity.start(T0);
+    }
+
+    private int y() {
+        return engine.getBoard().getViewData().getyPosition();
+    }
+
+    @Test
+    public void lateUpdatesCatchUpWithoutDrift() {
+        // wake-ups jitter around the deadlines but the brick keeps to the grid
+        long[] jitter = {0, 7, 93, 1, 50, 99, 12, 0, 45, 3};
+        for (int i = 0; i < jitter.length; i++) {
+            gravity.update(T0 + (i + 1) * FALL + jitter[i] * MS - 1);
+        }
+        assertEquals(10, y());
+        // a wake-up two rows late moves two rows at once
+        gravity.update(T0 + 12 * FALL);
+        assertEquals(12, y());
+    }
+
+    @Test
+    public void nextDeadlineIsReturned() {
+        assertEquals(T0 + FALL, gravity.update(T0 + 1));
+        assertEquals(T0 + 2 * FALL, gravity.update(T0 + FALL));
+    }
+
+    @Test
+    public void softDropFallsFaster() {
+        gravity.setSoftDrop(true, T0);
+        gravity.update(T0);
+        assertEquals(1, y());
+        gravity.update(T0 + FALL);
+        assertEquals(11, y());
+        gravity.setSoftDrop(false, T0 + FALL);
+        gravity.update(T0 + FALL + FALL / 2);
+        assertEquals(11, y());
+    }
+
+    @Test
+    public void twentyGReachesTheFloorWithinTwoFrames() {
+        gravity = new GravityScheduler(engine, level -> 0, LOCK_DELAY, 1);
+        gravity.start(T0);
+        // one wake-up per frame is enough, each covers twenty rows
+        gravity.update(T0 + GravityScheduler.FRAME_NANOS);
+        assertTrue(y() >= 19);
+        gravity.update(T0 + 2 * GravityScheduler.FRAME_NANOS);
+        assertFalse(engine.fall());
+        assertEquals(0, engine.getPiecesPlaced());
+    }
+
+    @Test
+    public void bricksLockAfterTheLockDelay() {
+        long now = landBrick();
+        gravity.update(now + LOCK_DELAY - 1);
+        assertEquals(0, engine.getPiecesPlaced());
+        gravity.update(now + LOCK_DELAY);
+        assertEquals(1, engine.getPiecesPlaced());
+        assertEquals(0, y());
+    }
+
+    @Test
+    public void movingRestartsTheLockDelay() {
+        long now = landBrick();
+        long moved = now + LOCK_DELAY / 2;
+        assertFalse(engine.step(new MoveEvent(EventType.LEFT, EventSource.THREAD)));
+        gravity.onPlayerMove(moved);
+        gravity.update(now + LOCK_DELAY);
+        assertEquals(0, engine.getPiecesPlaced());
+        gravity.update(moved + LOCK_DELAY);
+        assertEquals(1, engine.getPiecesPlaced());
+    }
+
+    @Test
+    public void lockResetsAreCapped() {
+        long now = landBrick();
+        for (int i = 0; i < GravityScheduler.MAX_LOCK_RESETS + 5; i++) {
+            gravity.onPlayerMove(now + i);
+        }
+        gravity.update(now + GravityScheduler.MAX_LOCK_RESETS - 1 + LOCK_DELAY);
+        assertEquals(1, engine.getPiecesPlaced());
+    }
+
+    @Test
+    public void hardDropLocksWithoutDelay() {
+        engine.step(new MoveEvent(EventType.SPACE, EventSource.THREAD));
+        gravity.onHardDrop(T0 + 1);
+        gravity.update(T0 + 1);
+        assertEquals(1, engine.getPiecesPlaced());
+    }
+
+    @Test
+    public void guidelineCurveSpeedsUpTo20G() {
+        assertEquals(1_000_000_000L, GravityScheduler.guidelineFallNanos(1));
+        long previous = Long.MAX_VALUE;
+        for (int level = 1; level <= 30; level++) {
+            long fall = GravityScheduler.guidelineFallNanos(level);
+            assertTrue(fall <= previous);
+            previous = fall;
+        }
+        assertEquals(GravityScheduler.MIN_FALL_NANOS, GravityScheduler.guidelineFallNanos(20));
+    }
+
+    // soft drops to the floor, returns the time the brick first failed to fall
+    private long landBrick() {
+        long now = T0;
+        int lastY = -1;
+        while (y() != lastY) {
+            lastY = y();
+            now += FALL;
+            gravity.update(now);
+        }
+        assertEquals(0, engine.getPiecesPlaced());
+        return now;
+    }
+}
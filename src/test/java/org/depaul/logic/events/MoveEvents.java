@@ -0,0 +1,17 @@
+package org.depaul.logic.events;
+
+// shared by the tests that play random moves
+public final class MoveEvents {
+
+    // one event of every type, indexed by ordinal
+    public static final MoveEvent[] ALL = new MoveEvent[EventType.values().length];
+
+    static {
+        for (EventType type : EventType.values()) {
+            ALL[type.ordinal()] = new MoveEvent(type, EventSource.THREAD);
+        }
+    }
+
+    private MoveEvents() {
+    }
+}
@@ -0,0 +1,54 @@
+package org.depaul.logic.events;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ScoreManagerTest {
+
+    @Test
+    public void closedFormMatchesTheLinePerLineBonus() {
+        ScoreManager manager = new ScoreManager();
+        Random random = new Random(3);
+        // the original loop: the bonus goes up by 40 every 10 lines, then the line earns it
+        int lines = 0;
+        int bonus = 0;
+        for (int lock = 0; lock < 100_000; lock++) {
+            int cleared = random.nextInt(5);
+            int expected = 40;
+            for (int i = 0; i < cleared; i++, lines++) {
+                if (lines % 10 == 0) {
+                    bonus += 40;
+                }
+                expected += bonus;
+            }
+            manager.addBrickScore(4);
+            manager.addLinesCleared(cleared);
+            assertEquals(expected, manager.scorePoints());
+            assertEquals(lines, manager.getLinesCleared());
+            assertEquals(bonus, manager.getCurrentBonusPoints());
+        }
+    }
+
+    @Test
+    public void marathonTotalsDoNotOverflow() {
+        // 40 points per line for the first 10, 80 for the next 10 and so on
+        assertEquals(10 + 20 + 3 * 3, ScoreManager.bonusSteps(23));
+        long lines = Integer.MAX_VALUE;
+        long steps = ScoreManager.bonusSteps(lines);
+        assertTrue(steps > ScoreManager.bonusSteps(lines - 1));
+        assertEquals((lines - 1) / 10 + 1, steps - ScoreManager.bonusSteps(lines - 1));
+    }
+
+    @Test
+    public void restoreKeepsPendingPointsPastIntRange() {
+        ScoreManager manager = new ScoreManager();
+        manager.restore(25, 3_000_000_000L);
+        assertEquals(3_000_000_000L, manager.getPointsToAdd());
+        assertEquals(25, manager.getLinesCleared());
+        assertEquals(120, manager.getCurrentBonusPoints());
+    }
+}
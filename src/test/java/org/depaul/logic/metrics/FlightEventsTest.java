@@ -0,0 +1,96 @@
+package org.depaul.logic.metrics;
+
+import org.depaul.logic.board.SimpleBoard;
+import org.depaul.logic.bricks.SeededBrickGenerator;
+import org.depaul.logic.engine.GameEngine;
+import org.depaul.logic.engine.GameEventListener;
+import org.depaul.logic.engine.GravityScheduler;
+import org.depaul.logic.events.EventSource;
+import org.depaul.logic.events.EventType;
+import org.depaul.logic.events.MoveEvent;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FlightEventsTest {
+
+    @Test
+    public void locksTicksAndGameOverAreRecorded() throws IOException {
+        GameEngine engine = new GameEngine(new SimpleBoard(25, 10, new SeededBrickGenerator(21, SeededBrickGenerator.Mode.UNIFORM, 1)));
+        List<Integer> points = new ArrayList<>();
+        engine.addListener(new GameEventListener() {
+            @Override
+            public void onBrickLocked(int linesCleared, int scored) {
+                points.add(scored);
+            }
+        });
+        // one row per simulated millisecond, no lock delay
+        GravityScheduler gravity = new GravityScheduler(engine, level -> 1_000_000L, 0, 1);
+        MoveEvent[] moves = {
+                new MoveEvent(EventType.LEFT, EventSource.THREAD), new MoveEvent(EventType.RIGHT, EventSource.THREAD),
+                new MoveEvent(EventType.Z, EventSource.THREAD)
+        };
+        Random random = new Random(2);
+
+        Path file = Files.createTempFile("tetris", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(BrickLockEvent.class);
+            recording.enable(GravityTickEvent.class);
+            recording.enable(GameOverEvent.class);
+            recording.start();
+            long now = 0;
+            gravity.start(now);
+            while (!engine.isGameOver()) {
+                now += 1_000_000L;
+                engine.step(moves[random.nextInt(moves.length)]);
+                gravity.update(now);
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> locks = new ArrayList<>();
+        int ticks = 0;
+        int gameOvers = 0;
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            switch (event.getEventType().getName()) {
+                case "org.depaul.tetris.BrickLock":
+                    locks.add(event);
+                    break;
+                case "org.depaul.tetris.GravityTick":
+                    ticks++;
+                    break;
+                case "org.depaul.tetris.GameOver":
+                    gameOvers++;
+                    assertEquals(engine.getScore(), event.getLong("score"));
+                    assertEquals(engine.getPiecesPlaced(), event.getInt("piecesPlaced"));
+                    break;
+                default:
+            }
+        }
+        Files.delete(file);
+
+        assertEquals(engine.getPiecesPlaced(), locks.size());
+        assertEquals(1, gameOvers);
+        assertTrue(ticks > locks.size());
+        long score = 0;
+        for (int i = 0; i < locks.size(); i++) {
+            RecordedEvent lock = locks.get(i);
+            score += lock.getInt("points");
+            assertEquals((int) points.get(i), lock.getInt("points"));
+            assertEquals(score, lock.getLong("score"));
+            assertTrue("IJLOSTZ".contains(lock.getString("piece")));
+        }
+    }
+}
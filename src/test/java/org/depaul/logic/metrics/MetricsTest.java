@@ -0,0 +1,80 @@
+package org.depaul.logic.metrics;
+
+import org.depaul.logic.util.LatencyHistogram;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsTest {
+
+    @Test
+    public void timerMergesEveryThread() throws InterruptedException {
+        LatencyTimer timer = new LatencyTimer("test");
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            long value = (i + 1) * 1000L;
+            threads[i] = new Thread(() -> {
+                for (int n = 0; n < 10_000; n++) {
+                    timer.record(value);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        LatencyHistogram merged = timer.snapshot();
+        assertEquals(40_000, merged.getCount());
+        assertEquals(4000, merged.getMax());
+        long median = merged.getValueAtPercentile(50);
+        assertTrue(median >= 2000 && median <= 2000 + 2000 / 64);
+    }
+
+    @Test
+    public void attributesOfOnePollShareASnapshot() {
+        LatencyTimer timer = new LatencyTimer("test");
+        timer.record(1_000);
+        assertEquals(1, timer.getCount());
+        timer.record(9_000);
+        assertEquals(1, timer.getCount());
+        assertEquals(1.0, timer.getMaxMicros(), 0.1);
+        assertEquals(2, timer.snapshot().getCount());
+    }
+
+    @Test
+    public void eventRateCoversTheLastWindow() {
+        PipelineCounters counters = new PipelineCounters();
+        long start = System.nanoTime();
+        counters.sample(start);
+        for (int i = 0; i < 500; i++) {
+            counters.eventApplied();
+        }
+        counters.sample(start + 1_000_000_000L);
+        assertEquals(500.0, counters.getEventsPerSecond(), 0.001);
+        assertEquals(500.0, counters.getEventsPerSecond(), 0.001);
+        counters.sample(start + 2_000_000_000L);
+        assertEquals(0.0, counters.getEventsPerSecond(), 0.001);
+    }
+
+    @Test
+    public void publishedThroughJmx() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        Metrics.register(server);
+        Metrics.MOVE_BRICK.record(3_000);
+        Metrics.PIPELINE.pieceLocked(2);
+        Metrics.PIPELINE.pieceLocked(0);
+
+        ObjectName moveBrick = new ObjectName(Metrics.DOMAIN + ":type=Timer,name=moveBrick");
+        assertTrue((Long) server.getAttribute(moveBrick, "Count") >= 1);
+        assertTrue((Double) server.getAttribute(moveBrick, "MaxMicros") >= 3.0);
+        ObjectName pipeline = new ObjectName(Metrics.DOMAIN + ":type=Pipeline");
+        assertTrue((Long) server.getAttribute(pipeline, "PiecesLocked") >= 2);
+        assertTrue((Long) server.getAttribute(pipeline, "LinesCleared") >= 2);
+        assertEquals(8, server.queryNames(new ObjectName(Metrics.DOMAIN + ":*"), null).size());
+    }
+}
@@ -0,0 +1,144 @@
+package org.depaul.logic.replay;
+
+import org.depaul.logic.board.SimpleBoard;
+import org.depaul.logic.bricks.SeededBrickGenerator;
+import org.depaul.logic.engine.GameEngine;
+import org.depaul.logic.sim.RandomMovePolicy;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReplayArchiveTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // plays games through a recorder, returns the score of every game in order
+    private long[] record(ReplayArchiveWriter archive, int games, long seed) {
+        SeededBrickGenerator generator = new SeededBrickGenerator(seed, SeededBrickGenerator.Mode.BAG, 1);
+        GameEngine engine = new GameEngine(new SimpleBoard(25, 10, generator));
+        ReplayRecorder recorder = new ReplayRecorder(archive, engine, generator, seed);
+        engine.addListener(recorder);
+        RandomMovePolicy policy = new RandomMovePolicy(seed);
+        long[] scores = new long[games];
+        for (int game = 0; game < games; game++) {
+            if (game > 0) {
+                engine.newGame();
+            }
+            while (!engine.isGameOver()) {
+                engine.step(policy.nextMove(engine));
+                engine.fall();
+            }
+            scores[game] = engine.getScore();
+        }
+        recorder.close();
+        return scores;
+    }
+
+    @Test
+    public void gamesAreFoundByIdAcrossSegments() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        long[] scores;
+        try (ReplayArchiveWriter writer = new ReplayArchiveWriter(dir, 2048)) {
+            scores = record(writer, 50, 11);
+            assertEquals(50, writer.size());
+        }
+        assertTrue(Files.exists(ReplayArchive.segmentFile(dir, 1)));
+
+        ReplayArchive archive = ReplayArchive.open(dir);
+        assertEquals(50, archive.size());
+        for (int id = archive.size() - 1; id >= 0; id--) {
+            assertEquals(scores[id], archive.getScore(id));
+            Replay replay = archive.get(id);
+            assertEquals(scores[id], replay.getScore());
+            assertEquals(replay.getLines(), archive.getLines(id));
+            ReplayPlayer.playAndVerify(replay);
+        }
+        int[] visited = new int[1];
+        archive.forEach(replay -> visited[0]++);
+        assertEquals(50, visited[0]);
+    }
+
+    @Test
+    public void reopeningAppendsAfterTheLastCompleteGame() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        try (ReplayArchiveWriter writer = new ReplayArchiveWriter(dir)) {
+            record(writer, 3, 1);
+        }
+        // an append that died halfway: data written, index entry torn
+        try (FileChannel data = FileChannel.open(ReplayArchive.segmentFile(dir, 0), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+             FileChannel index = FileChannel.open(dir.resolve(ReplayArchive.INDEX_FILE), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            data.write(ByteBuffer.wrap(new byte[100]));
+            index.write(ByteBuffer.wrap(new byte[ReplayArchive.ENTRY_BYTES / 2]));
+        }
+        assertEquals(3, ReplayArchive.open(dir).size());
+
+        long[] scores;
+        try (ReplayArchiveWriter writer = new ReplayArchiveWriter(dir)) {
+            assertEquals(3, writer.size());
+            scores = record(writer, 2, 2);
+        }
+        ReplayArchive archive = ReplayArchive.open(dir);
+        assertEquals(5, archive.size());
+        assertEquals(scores[0], archive.getScore(3));
+        for (int id = 0; id < archive.size(); id++) {
+            ReplayPlayer.playAndVerify(archive.get(id));
+        }
+    }
+
+    @Test
+    public void zeroFilledEntriesAreDroppedOnReopen() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        long[] scores;
+        try (ReplayArchiveWriter writer = new ReplayArchiveWriter(dir)) {
+            scores = record(writer, 3, 5);
+        }
+        // the index tail came back as zeros after a power loss, plus a stray entry
+        try (FileChannel index = FileChannel.open(dir.resolve(ReplayArchive.INDEX_FILE), StandardOpenOption.WRITE)) {
+            index.write(ByteBuffer.wrap(new byte[ReplayArchive.ENTRY_BYTES]), ReplayArchive.entry(2));
+            ByteBuffer stray = ByteBuffer.allocate(ReplayArchive.ENTRY_BYTES).putLong(7).putInt(0).putInt(0).putInt(10);
+            index.write(stray.flip(), ReplayArchive.entry(3));
+        }
+        try (ReplayArchiveWriter writer = new ReplayArchiveWriter(dir)) {
+            assertEquals(2, writer.size());
+        }
+        ReplayArchive archive = ReplayArchive.open(dir);
+        assertEquals(2, archive.size());
+        for (int id = 0; id < archive.size(); id++) {
+            assertEquals(scores[id], archive.getScore(id));
+            ReplayPlayer.playAndVerify(archive.get(id));
+        }
+    }
+
+    @Test
+    public void indexOffsetsDoNotOverflow() {
+        long games = 1L << 26;
+        assertEquals(ReplayArchive.HEADER_BYTES + games * ReplayArchive.ENTRY_BYTES, ReplayArchive.entry(games));
+        // the last entry still ends inside one mapping
+        assertTrue(ReplayArchive.entry(ReplayArchive.MAX_GAMES) <= Integer.MAX_VALUE);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void unknownIdsAreRejected() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        new ReplayArchiveWriter(dir).close();
+        ReplayArchive.open(dir).get(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void onlyReplaysAreAppended() throws IOException {
+        try (ReplayArchiveWriter writer = new ReplayArchiveWriter(folder.getRoot().toPath())) {
+            writer.append(ByteBuffer.wrap(new byte[64]));
+        }
+    }
+}
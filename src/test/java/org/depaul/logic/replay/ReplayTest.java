@@ -0,0 +1,181 @@
+package org.depaul.logic.replay;
+
+import org.depaul.logic.board.SimpleBoard;
+import org.depaul.logic.bricks.SeededBrickGenerator;
+import org.depaul.logic.data.Frame;
+import org.depaul.logic.engine.GameEngine;
+import org.depaul.logic.engine.GameEventListener;
+import org.depaul.logic.engine.GameLoop;
+import org.depaul.logic.events.EventSource;
+import org.depaul.logic.events.EventType;
+import org.depaul.logic.events.MoveEvent;
+import org.depaul.logic.sim.RandomMovePolicy;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReplayTest {
+
+    private static final long SEED = 0x5EEDL;
+    private static final long STEP_NANOS = 20_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    long clock;
+
+    // a random game recorded through the engine's listener, like the GUI does
+    private byte[] record(long seed, int maxPieces) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GameEngine engine = new GameEngine(new SimpleBoard(25, 10, new SeededBrickGenerator(seed, SeededBrickGenerator.Mode.BAG, 1)));
+        ReplayWriter writer = new ReplayWriter(out, () -> clock, 25, 10, seed, SeededBrickGenerator.Mode.BAG, 1);
+        engine.addListener(new GameEventListener() {
+            @Override
+            public void onMoveApplied(MoveEvent event) {
+                try {
+                    writer.write(event);
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        });
+        RandomMovePolicy policy = new RandomMovePolicy(seed);
+        while (!engine.isGameOver() && engine.getPiecesPlaced() < maxPieces) {
+            clock += STEP_NANOS;
+            engine.step(policy.nextMove(engine));
+            clock += STEP_NANOS;
+            engine.fall();
+        }
+        writer.finish(engine);
+        writer.close();
+        return out.toByteArray();
+    }
+
+    @Test
+    public void headlessPlaybackReproducesTheGame() throws IOException {
+        byte[] bytes = record(SEED, 1000);
+        Replay replay = Replay.read(ByteBuffer.wrap(bytes));
+        assertEquals(25, replay.getRows());
+        assertEquals(10, replay.getColumns());
+        assertEquals(SEED, replay.getSeed());
+        assertTrue(replay.getPieces() > 0);
+        // one or two bytes per event
+        assertTrue(bytes.length < 40 + 2 * replay.getEventCount());
+
+        GameEngine engine = ReplayPlayer.playAndVerify(replay);
+        assertEquals(replay.getScore(), engine.getScore());
+        // and again, the replay is not consumed by playing it
+        assertTrue(ReplayPlayer.matches(replay, ReplayPlayer.play(replay)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void wrongSeedIsDetected() throws IOException {
+        byte[] bytes = record(SEED, 200);
+        // flip the lowest byte of the seed: magic 4, version 1, rows 1, columns 1, seed 8
+        bytes[14] ^= 1;
+        ReplayPlayer.playAndVerify(Replay.read(ByteBuffer.wrap(bytes)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedReplayIsRejected() throws IOException {
+        byte[] bytes = record(SEED, 200);
+        Replay.read(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 3)));
+    }
+
+    @Test
+    public void recorderWritesOneVerifiableFilePerGame() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        SeededBrickGenerator generator = new SeededBrickGenerator(SEED, SeededBrickGenerator.Mode.UNIFORM, 1);
+        GameEngine engine = new GameEngine(new SimpleBoard(25, 10, generator));
+        ReplayRecorder recorder = new ReplayRecorder(dir, engine, generator, SEED);
+        engine.addListener(recorder);
+        RandomMovePolicy policy = new RandomMovePolicy(1);
+        for (int game = 0; game < 3; game++) {
+            if (game > 0) {
+                engine.newGame();
+            }
+            // the last game is abandoned halfway
+            while (!engine.isGameOver() && engine.getPiecesPlaced() < (game == 2 ? 5 : 10_000)) {
+                engine.step(policy.nextMove(engine));
+            }
+        }
+        recorder.close();
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = list.collect(Collectors.toList());
+        }
+        assertEquals(3, files.size());
+        int finished = 0;
+        for (Path file : files) {
+            Replay replay = Replay.read(file);
+            ReplayPlayer.playAndVerify(replay);
+            finished += replay.isGameOver() ? 1 : 0;
+        }
+        assertEquals(2, finished);
+    }
+
+    @Test
+    public void realTimePlaybackKeepsTheRecordedPace() throws IOException, InterruptedException {
+        Replay replay = Replay.read(ByteBuffer.wrap(record(SEED, 20)));
+        GameEngine engine = replay.newEngine();
+        GameLoop loop = new GameLoop(engine);
+        loop.start();
+        long start = System.nanoTime();
+        ReplayPlayer.playRealTime(replay, loop);
+        long elapsed = System.nanoTime() - start;
+        long expected = (clock - STEP_NANOS) / 1000 * 1000;
+        assertTrue(elapsed >= expected - 1000 * (long) replay.getEventCount());
+
+        GameEngine headless = ReplayPlayer.play(replay);
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        Frame frame = loop.getFrame();
+        while (!Arrays.deepEquals(frame.boardMatrix(), headless.getBoard().getBoardMatrix())
+                || !frame.brick().equals(headless.getBoard().getViewData())) {
+            assertFalse("loop never caught up", System.nanoTime() > deadline);
+            Thread.sleep(1);
+            frame = loop.getFrame();
+        }
+        loop.stop();
+        assertArrayEquals(headless.getBoard().getBoardMatrix(), frame.boardMatrix());
+    }
+
+    @Test
+    public void writerStreamsInChunks() throws IOException {
+        int[] writes = new int[1];
+        OutputStream counting = new OutputStream() {
+            @Override
+            public void write(int b) {
+                writes[0]++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                writes[0]++;
+            }
+        };
+        ReplayWriter writer = new ReplayWriter(counting, () -> clock, 25, 10, SEED, SeededBrickGenerator.Mode.BAG, 1);
+        MoveEvent down = new MoveEvent(EventType.DOWN, EventSource.THREAD);
+        for (int i = 0; i < 100_000; i++) {
+            writer.write(down);
+        }
+        // 100k single byte entries in 8 KB blocks
+        assertTrue(writes[0] <= 13);
+    }
+}
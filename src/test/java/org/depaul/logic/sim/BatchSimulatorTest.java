@@ -0,0 +1,30 @@
+package org.depaul.logic.sim;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchSimulatorTest {
+
+    @Test
+    public void resultsDoNotDependOnParallelism() {
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool many = new ForkJoinPool(4);
+        try {
+            SimulationSummary a = new BatchSimulator(25, 10, 200, RandomMovePolicy::new, single).run(500, 11L);
+            SimulationSummary b = new BatchSimulator(25, 10, 200, RandomMovePolicy::new, many).run(500, 11L);
+
+            assertEquals(500, a.getGames());
+            assertEquals(a.getScore().getSum(), b.getScore().getSum());
+            assertEquals(a.getLinesCleared().getSum(), b.getLinesCleared().getSum());
+            assertEquals(a.getPiecesPlaced().getSum(), b.getPiecesPlaced().getSum());
+            assertTrue(a.getPiecesPlaced().getMax() <= 200);
+        } finally {
+            single.shutdown();
+            many.shutdown();
+        }
+    }
+}
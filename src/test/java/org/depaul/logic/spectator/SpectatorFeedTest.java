@@ -0,0 +1,157 @@
+package org.depaul.logic.spectator;
+
+import org.depaul.logic.board.SimpleBoard;
+import org.depaul.logic.bricks.SeededBrickGenerator;
+import org.depaul.logic.data.ViewData;
+import org.depaul.logic.engine.GameEngine;
+import org.depaul.logic.events.EventSource;
+import org.depaul.logic.events.EventType;
+import org.depaul.logic.events.MoveEvent;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SpectatorFeedTest {
+
+    private static final MoveEvent[] MOVES = {
+            new MoveEvent(EventType.DOWN, EventSource.THREAD), new MoveEvent(EventType.DOWN, EventSource.THREAD),
+            new MoveEvent(EventType.LEFT, EventSource.THREAD), new MoveEvent(EventType.RIGHT, EventSource.THREAD),
+            new MoveEvent(EventType.Z, EventSource.THREAD), new MoveEvent(EventType.SPACE, EventSource.THREAD)
+    };
+
+    @Test
+    public void viewFollowsTheGame() {
+        GameEngine engine = newEngine(3);
+        SpectatorFeed feed = new SpectatorFeed(engine);
+        SpectatorFeed.Subscription subscription = feed.subscribe();
+        SpectatorView view = new SpectatorView();
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        Random random = new Random(8);
+        int games = 0;
+        for (int i = 0; i < 50_000; i++) {
+            if (engine.isGameOver()) {
+                engine.newGame();
+                games++;
+            } else {
+                engine.step(MOVES[random.nextInt(MOVES.length)]);
+            }
+            feed.commit();
+            subscription.poll(buffer);
+            view.accept(buffer.flip());
+            buffer.compact();
+            assertMatches(engine, view);
+        }
+        assertTrue(games > 10);
+        assertEquals(1, subscription.getResyncs());
+        // keyframes for new games and every half ring, deltas for everything else
+        assertTrue(view.getDeltas() > 20 * view.getKeyframes());
+    }
+
+    @Test
+    public void aMoveCostsAFewBytes() {
+        GameEngine engine = newEngine(5);
+        SpectatorFeed feed = new SpectatorFeed(engine);
+        long start = feed.getPosition();
+        engine.step(new MoveEvent(EventType.LEFT, EventSource.THREAD));
+        feed.commit();
+        // length, DELTA, OP_PIECE, brick, rotation, x, y
+        assertEquals(7, feed.getPosition() - start);
+        start = feed.getPosition();
+        feed.commit();
+        assertEquals(start, feed.getPosition());
+    }
+
+    @Test
+    public void slowSubscriberSkipsToTheLatestKeyframe() {
+        GameEngine engine = newEngine(9);
+        SpectatorFeed feed = new SpectatorFeed(engine, 2048);
+        SpectatorFeed.Subscription subscription = feed.subscribe();
+        SpectatorView view = new SpectatorView();
+        ByteBuffer buffer = ByteBuffer.allocate(2048);
+        Random random = new Random(4);
+        for (int i = 0; i < 20_000; i++) {
+            if (engine.isGameOver()) {
+                engine.newGame();
+            } else {
+                engine.step(MOVES[random.nextInt(MOVES.length)]);
+            }
+            feed.commit();
+            if (i % 997 == 0) {
+                // drain everything there is
+                while (subscription.poll(buffer) > 0) {
+                    view.accept(buffer.flip());
+                    buffer.compact();
+                }
+                assertMatches(engine, view);
+            }
+        }
+        assertTrue(subscription.getResyncs() > 5);
+    }
+
+    @Test
+    public void manySubscribersOnTheirOwnThreads() throws InterruptedException {
+        GameEngine engine = newEngine(12);
+        SpectatorFeed feed = new SpectatorFeed(engine, 4096);
+        AtomicBoolean done = new AtomicBoolean();
+        SpectatorView[] views = new SpectatorView[4];
+        Thread[] readers = new Thread[views.length];
+        for (int i = 0; i < readers.length; i++) {
+            SpectatorFeed.Subscription subscription = feed.subscribe();
+            SpectatorView view = new SpectatorView();
+            views[i] = view;
+            readers[i] = new Thread(() -> {
+                ByteBuffer buffer = ByteBuffer.allocate(1024);
+                boolean finished;
+                do {
+                    finished = done.get();
+                    while (subscription.poll(buffer) > 0) {
+                        view.accept(buffer.flip());
+                        buffer.compact();
+                    }
+                } while (!finished);
+            });
+            readers[i].start();
+        }
+        Random random = new Random(6);
+        for (int i = 0; i < 100_000; i++) {
+            if (engine.isGameOver()) {
+                engine.newGame();
+            } else {
+                engine.step(MOVES[random.nextInt(MOVES.length)]);
+            }
+            feed.commit();
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        for (SpectatorView view : views) {
+            assertMatches(engine, view);
+        }
+    }
+
+    private static GameEngine newEngine(long seed) {
+        return new GameEngine(new SimpleBoard(25, 10, new SeededBrickGenerator(seed, SeededBrickGenerator.Mode.UNIFORM, 1)));
+    }
+
+    private static void assertMatches(GameEngine engine, SpectatorView view) {
+        int[][] board = engine.getBoard().getBoardMatrix();
+        for (int row = 0; row < board.length; row++) {
+            assertArrayEquals(board[row], view.getBoardMatrix()[row]);
+        }
+        ViewData piece = engine.getBoard().getViewData();
+        assertEquals(piece.brickShape().getColour() - 1, view.getBrick());
+        assertEquals(piece.brickShape().getRotation(), view.getRotation());
+        assertEquals(piece.getxPosition(), view.getX());
+        assertEquals(piece.getyPosition(), view.getY());
+        assertEquals(piece.nextBrickShape().getColour() - 1, view.getNextBrick());
+        assertEquals(engine.getScore(), view.getScore());
+        assertEquals(engine.isGameOver(), view.isGameOver());
+    }
+}
@@ -0,0 +1,37 @@
+package org.depaul.logic.util;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class VarintTest {
+
+    @Test
+    public void intsRoundTrip() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        int[] values = {0, 1, 127, 128, 300, Integer.MAX_VALUE};
+        for (int value : values) {
+            Varint.putLong(buffer, value);
+        }
+        buffer.flip();
+        for (int value : values) {
+            assertEquals(value, Varint.getInt(buffer));
+        }
+    }
+
+    @Test
+    public void getIntRejectsValuesPastIntMax() {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        Varint.putLong(buffer, 1L << 31);
+        buffer.flip();
+        assertThrows(IllegalArgumentException.class, () -> Varint.getInt(buffer));
+
+        buffer.clear();
+        Varint.putLong(buffer, 0xFFFFFFFFL);
+        buffer.flip();
+        assertThrows(IllegalArgumentException.class, () -> Varint.getInt(buffer));
+    }
+}
@@ -0,0 +1,141 @@
+package org.depaul.server;
+
+import org.depaul.logic.board.SimpleBoard;
+import org.depaul.logic.bricks.SeededBrickGenerator;
+import org.depaul.logic.data.ViewData;
+import org.depaul.logic.engine.GameEngine;
+import org.depaul.logic.events.EventType;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GameServerTest {
+
+    @Test
+    public void acksMatchALocalGameWithTheSameSeed() throws IOException {
+        try (GameServer server = new GameServer(loopback(0), 2, null)) {
+            Random random = new Random(11);
+            SocketChannel[] clients = new SocketChannel[6];
+            GameEngine[] games = new GameEngine[clients.length];
+            for (int i = 0; i < clients.length; i++) {
+                clients[i] = SocketChannel.open(loopback(server.getPort()));
+                ByteBuffer hello = read(clients[i], Protocol.HELLO_BYTES);
+                assertEquals(Protocol.HELLO, hello.get());
+                games[i] = new GameEngine(new SimpleBoard(GameSession.ROWS, GameSession.COLUMNS,
+                        new SeededBrickGenerator(hello.getLong(), SeededBrickGenerator.Mode.UNIFORM, 1)));
+            }
+            int locks = 0;
+            ByteBuffer batch = ByteBuffer.allocate(40);
+            for (int round = 0; round < 60; round++) {
+                for (int i = 0; i < clients.length; i++) {
+                    // pipelined: the whole batch goes out before any ack is read
+                    batch.clear();
+                    while (batch.hasRemaining()) {
+                        batch.put(random.nextInt(8) == 0 ? Protocol.NEW_GAME
+                                : Protocol.encode(EventType.values()[random.nextInt(EventType.values().length)]));
+                    }
+                    batch.flip();
+                    while (batch.hasRemaining()) {
+                        clients[i].write(batch);
+                    }
+                    ByteBuffer acks = read(clients[i], batch.limit() * Protocol.ACK_BYTES);
+                    for (int n = 0; n < batch.limit(); n++) {
+                        int expectedFlags = apply(games[i], batch.get(n));
+                        locks += (expectedFlags & Protocol.LOCKED) != 0 ? 1 : 0;
+                        assertEquals(Protocol.ACK, acks.get());
+                        assertEquals(expectedFlags, acks.get());
+                        assertEquals(games[i].getScore(), acks.getInt());
+                    }
+                }
+            }
+            assertTrue(locks > 100);
+            assertEquals(clients.length, server.getSessionCount());
+            for (SocketChannel client : clients) {
+                client.close();
+            }
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (server.getSessionCount() > 0 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            assertEquals(0, server.getSessionCount());
+        }
+    }
+
+    @Test
+    public void gravityLocksBricksWithoutInput() throws IOException {
+        // a row every millisecond, the half second lock delay does the rest
+        try (GameServer server = new GameServer(loopback(0), 1, level -> 1_000_000L);
+             SocketChannel client = SocketChannel.open(loopback(server.getPort()))) {
+            assertEquals(Protocol.HELLO, read(client, Protocol.HELLO_BYTES).get());
+            long start = System.nanoTime();
+            ByteBuffer message = read(client, Protocol.ACK_BYTES);
+            assertEquals(Protocol.GRAVITY, message.get());
+            assertEquals(Protocol.LOCKED, message.get() & Protocol.LOCKED);
+            assertEquals(40, message.getInt());
+            assertTrue(System.nanoTime() - start >= 400_000_000L);
+        }
+    }
+
+    @Test
+    public void connectionsResetBeforeRegistrationOnlyCloseThemselves() throws IOException {
+        try (GameServer server = new GameServer(loopback(0), 1, null);
+             SocketChannel client = SocketChannel.open(loopback(server.getPort()))) {
+            assertEquals(Protocol.HELLO, read(client, Protocol.HELLO_BYTES).get());
+            for (int i = 0; i < 200; i++) {
+                SocketChannel reset = SocketChannel.open(loopback(server.getPort()));
+                // linger 0 turns close into a reset
+                reset.setOption(StandardSocketOptions.SO_LINGER, 0);
+                reset.close();
+            }
+            // the loop that had to drop them still serves the old client and takes new ones
+            client.write(ByteBuffer.wrap(new byte[] {Protocol.encode(EventType.LEFT)}));
+            assertEquals(Protocol.ACK, read(client, Protocol.ACK_BYTES).get());
+            try (SocketChannel late = SocketChannel.open(loopback(server.getPort()))) {
+                assertEquals(Protocol.HELLO, read(late, Protocol.HELLO_BYTES).get());
+            }
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (server.getSessionCount() > 1 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            assertEquals(1, server.getSessionCount());
+        }
+    }
+
+    // the flags the server should send for message on game
+    private static int apply(GameEngine game, byte message) {
+        int pieces = game.getPiecesPlaced();
+        boolean moved = false;
+        if (message == Protocol.NEW_GAME) {
+            game.newGame();
+        } else {
+            ViewData before = game.getBoard().getViewData();
+            game.step(Protocol.move(message));
+            moved = !game.getBoard().getViewData().equals(before);
+        }
+        return (moved ? Protocol.MOVED : 0) | (game.getPiecesPlaced() != pieces ? Protocol.LOCKED : 0)
+                | (game.isGameOver() ? Protocol.GAME_OVER : 0);
+    }
+
+    private static ByteBuffer read(SocketChannel channel, int bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("closed after " + buffer.position() + " bytes");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static InetSocketAddress loopback(int port) {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    }
+}